@@ -65,6 +65,7 @@ export default function App() {
   
   const [spokenPrompt, setSpokenPrompt] = useState('');
   const [speechVolume, setSpeechVolume] = useState(0); // Add speech volume state for visualizer
+  const [speechBands, setSpeechBands] = useState(null); // Native spectrum bands for visualizer (Android)
   const [displayText, setDisplayText] = useState(''); // Separate state for display text that persists longer
   const speechDisplayTimerRef = useRef(null); // Timer for clearing display text
 
@@ -469,9 +470,16 @@ export default function App() {
     setSpeechVolume(volume);
   }, []);
 
+  const handleSpectrumChange = useCallback((bands) => {
+    setSpeechBands(bands);
+  }, []);
+
   // Handle listening state changes
   const handleListeningStateChange = useCallback((isListening) => {
     setIsVoiceListening(isListening);
+    if (!isListening) {
+      setSpeechBands(null);
+    }
   }, []);
   
   // Deep analysis states
@@ -734,6 +742,7 @@ export default function App() {
         isListening={isVoiceListening} 
         text={displayText} 
         volume={speechVolume} // Use the speech volume state
+        bands={speechBands}
       />
       
       {/* Top control bar for voice and immediate analysis buttons */}
@@ -742,6 +751,7 @@ export default function App() {
           <VoiceButton 
             onSpeechResult={handleSpeechResult}
             onVolumeChange={handleVolumeChange}
+            onSpectrumChange={handleSpectrumChange}
             onListeningStateChange={handleListeningStateChange}
             onError={(error) => {
               setCameraError(error);
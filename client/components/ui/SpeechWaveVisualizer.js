@@ -1,7 +1,11 @@
 import React, { useEffect, useRef, useState } from 'react';
 import { View, Text, StyleSheet, Animated, Platform } from 'react-native';
 
-const SpeechWaveVisualizer = ({ isListening, text, volume = 0 }) => {
+// Bar heights for the native spectrum bands (levels arrive as 0.0 - 1.0)
+const BAR_MIN_HEIGHT = 2;
+const BAR_MAX_HEIGHT = 32;
+
+const SpeechWaveVisualizer = ({ isListening, text, volume = 0, bands = null }) => {
   const fadeAnim = useRef(new Animated.Value(0)).current;
   const [displayText, setDisplayText] = useState('');
     // Update display text when we receive new text
@@ -37,15 +41,31 @@ const SpeechWaveVisualizer = ({ isListening, text, volume = 0 }) => {
     }
   }, [isListening, displayText, fadeAnim]);
   
-  // Don't render anything if no text to display
-  if (!displayText) {
+  const showBars = isListening && Array.isArray(bands) && bands.length > 0;
+
+  // Don't render anything if there is neither text nor a spectrum to display
+  if (!displayText && !showBars) {
     return null;
   }
 
   return (
-    <Animated.View style={[styles.container, { opacity: fadeAnim }]}>
-      <Text style={styles.text}>{displayText}</Text>
-    </Animated.View>
+    <View style={styles.container} pointerEvents="none">
+      {displayText ? (
+        <Animated.View style={{ opacity: fadeAnim }}>
+          <Text style={styles.text}>{displayText}</Text>
+        </Animated.View>
+      ) : null}
+      {showBars && (
+        <View style={styles.bars}>
+          {bands.map((level, index) => (
+            <View
+              key={index}
+              style={[styles.bar, { height: BAR_MIN_HEIGHT + level * BAR_MAX_HEIGHT }]}
+            />
+          ))}
+        </View>
+      )}
+    </View>
   );
 };
 
@@ -60,6 +80,18 @@ const styles = StyleSheet.create({
     justifyContent: 'center',
     padding: 10,
   },
+  bars: {
+    flexDirection: 'row',
+    alignItems: 'flex-end',
+    height: BAR_MIN_HEIGHT + BAR_MAX_HEIGHT,
+    marginTop: 8,
+  },
+  bar: {
+    width: 4,
+    marginHorizontal: 1,
+    borderRadius: 2,
+    backgroundColor: 'rgba(255, 255, 255, 0.8)',
+  },
   text: {
     color: '#FFFFFF',
     fontSize: 16,
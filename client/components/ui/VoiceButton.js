@@ -6,6 +6,7 @@ import ociVoiceService from '../../services/ociVoiceService';
 const VoiceButton = ({ 
   onSpeechResult, 
   onVolumeChange, 
+  onSpectrumChange,
   onListeningStateChange,
   disabled = false 
 }) => {
@@ -106,6 +107,7 @@ const VoiceButton = ({
     service.setOnSpeechPartialResults(handleSpeechPartialResults);
     service.setOnSpeechEnd(handleSpeechEnd);
     service.setOnSpeechVolumeChanged(handleVolumeChange);
+    service.setOnSpeechSpectrum(onSpectrumChange || null);
     service.setOnSpeechError(handleSpeechError);
 
     return () => {
@@ -114,9 +116,10 @@ const VoiceButton = ({
       service.setOnSpeechPartialResults(null);
       service.setOnSpeechEnd(null);
       service.setOnSpeechVolumeChanged(null);
+      service.setOnSpeechSpectrum(null);
       service.setOnSpeechError(null);
     };
-  }, [handleSpeechStart, handleSpeechResult, handleSpeechPartialResults, handleSpeechEnd, handleVolumeChange, handleSpeechError]);
+  }, [handleSpeechStart, handleSpeechResult, handleSpeechPartialResults, handleSpeechEnd, handleVolumeChange, onSpectrumChange, handleSpeechError]);
 
   // Button press handler
   const handlePress = useCallback(async () => {
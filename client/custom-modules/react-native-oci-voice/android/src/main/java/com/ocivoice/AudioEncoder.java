@@ -0,0 +1,27 @@
+package com.ocivoice;
+
+/**
+ * Converts captured 16-bit PCM into the wire format sent to OCI Speech.
+ * Implementations must be stateless so one instance can be shared across sessions.
+ */
+interface AudioEncoder {
+    /**
+     * @param sampleRate Sample rate of the audio being sent
+     * @return Value for the service's encoding query parameter, e.g. "audio/raw;rate=16000"
+     */
+    String getEncoding(int sampleRate);
+
+    /**
+     * @param sampleCount Number of input samples
+     * @return Upper bound on the encoded size, for sizing output buffers once
+     */
+    int maxEncodedSize(int sampleCount);
+
+    /**
+     * @param samples PCM samples
+     * @param count Number of valid samples
+     * @param out Destination, at least maxEncodedSize(count) long
+     * @return Number of bytes written
+     */
+    int encode(short[] samples, int count, byte[] out);
+}
@@ -0,0 +1,444 @@
+package com.ocivoice;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.ParcelFileDescriptor;
+import android.util.Log;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reads a WAV or headerless PCM file as mono 16-bit little-endian PCM at a fixed output rate.
+ *
+ * Regular files are memory-mapped; anything that cannot be mapped (pipes, some content
+ * providers) falls back to chunked channel reads. Multi-channel audio is downmixed, and audio
+ * recorded at another rate (44.1/48 kHz from most recorders) is resampled.
+ */
+class AudioFileSource implements Closeable {
+    private static final String TAG = "OCIVoiceFileSource";
+
+    private static final int WAVE_FORMAT_PCM = 1;
+    private static final int WAVE_FORMAT_EXTENSIBLE = 0xFFFE;
+    private static final int MIN_SAMPLE_RATE = 4000;
+    private static final int MAX_SAMPLE_RATE = 384000;
+
+    private final ParcelFileDescriptor descriptor;
+    private final FileInputStream inputStream;
+    private final FileChannel channel;
+    private final MappedByteBuffer mapped;
+
+    // Bytes read while sniffing for a RIFF header that turned out to be audio
+    private final ByteBuffer pending = ByteBuffer.allocate(12).order(ByteOrder.LITTLE_ENDIAN);
+
+    private final int outputSampleRate;
+    private int sampleRate; // Rate of the audio in the file
+    private int channels = 1;
+    private long dataRemaining = -1; // -1 when the length is unknown
+    private long totalBytes = -1;
+
+    // Interleaved frames awaiting downmix
+    private byte[] frameScratch = null;
+
+    // Set when the file's rate differs from the output rate
+    private LinearResampler resampler = null;
+    private byte[] monoScratch = null;
+    private short[] inputSamples = null;
+    private short[] outputSamples = null;
+
+    /**
+     * The file is readable but not in a format this source can decode
+     */
+    static class UnsupportedFormatException extends IOException {
+        UnsupportedFormatException(String message) {
+            super(message);
+        }
+    }
+
+    private AudioFileSource(ParcelFileDescriptor descriptor, int defaultSampleRate, int outputSampleRate) throws IOException {
+        this.descriptor = descriptor;
+        this.inputStream = new FileInputStream(descriptor.getFileDescriptor());
+        this.channel = inputStream.getChannel();
+        this.mapped = tryMap(channel);
+        this.sampleRate = defaultSampleRate;
+        this.outputSampleRate = outputSampleRate;
+        pending.limit(0);
+    }
+
+    /**
+     * Open a file:// or content:// URI, or a plain path
+     * @param context Context used to resolve content URIs
+     * @param uriString Location of the audio
+     * @param defaultSampleRate Sample rate to assume for headerless PCM
+     * @param outputSampleRate Sample rate read() produces, whatever the file's own rate
+     * @return A source positioned at the first sample
+     */
+    static AudioFileSource open(Context context, String uriString, int defaultSampleRate,
+                                int outputSampleRate) throws IOException {
+        Uri uri = Uri.parse(uriString);
+        if (uri.getScheme() == null) {
+            uri = Uri.parse("file://" + uriString);
+        }
+
+        ParcelFileDescriptor descriptor = context.getContentResolver().openFileDescriptor(uri, "r");
+        if (descriptor == null) {
+            throw new IOException("Could not open " + uriString);
+        }
+
+        AudioFileSource source = new AudioFileSource(descriptor, defaultSampleRate, outputSampleRate);
+        try {
+            source.readHeader();
+            source.prepareResampler();
+        } catch (IOException e) {
+            source.close();
+            throw e;
+        }
+        return source;
+    }
+
+    /**
+     * @return Sample rate of the PCM read() produces
+     */
+    int getSampleRate() {
+        return outputSampleRate;
+    }
+
+    /**
+     * @return Approximate length of the PCM this source will produce, or -1 if unknown
+     */
+    long getTotalBytes() {
+        if (totalBytes < 0 || resampler == null) {
+            return totalBytes;
+        }
+        return totalBytes / 2 * outputSampleRate / sampleRate * 2;
+    }
+
+    /**
+     * Read the next block of mono 16-bit PCM at the output sample rate
+     * @param out Destination array
+     * @param maxBytes Maximum number of bytes to produce (rounded down to whole samples)
+     * @return Number of bytes written, or -1 at end of audio
+     */
+    int read(byte[] out, int maxBytes) throws IOException {
+        if (resampler == null) {
+            return readMono(out, maxBytes);
+        }
+
+        // Input that cannot resample to more than maxBytes of output
+        int maxOutput = maxBytes / 2;
+        int inputCount = Math.max(1, (int) ((long) (maxOutput - 2) * sampleRate / outputSampleRate));
+        if (monoScratch == null || monoScratch.length < inputCount * 2) {
+            monoScratch = new byte[inputCount * 2];
+            inputSamples = new short[inputCount];
+            outputSamples = new short[resampler.maxOutput(inputCount)];
+        }
+
+        while (true) {
+            int read = readMono(monoScratch, inputCount * 2);
+            if (read < 0) {
+                return -1;
+            }
+            int samples = read / 2;
+            for (int i = 0; i < samples; i++) {
+                inputSamples[i] = (short) ((monoScratch[i * 2] & 0xFF) | (monoScratch[i * 2 + 1] << 8));
+            }
+
+            int produced = Math.min(resampler.process(inputSamples, samples, outputSamples), maxOutput);
+            if (produced == 0) {
+                // Too little input for an output sample yet
+                continue;
+            }
+            for (int i = 0; i < produced; i++) {
+                out[i * 2] = (byte) outputSamples[i];
+                out[i * 2 + 1] = (byte) (outputSamples[i] >> 8);
+            }
+            return produced * 2;
+        }
+    }
+
+    /**
+     * Read the next block of mono 16-bit PCM at the file's own sample rate
+     */
+    private int readMono(byte[] out, int maxBytes) throws IOException {
+        int frameBytes = channels * 2;
+        int frames = (maxBytes / 2);
+        if (dataRemaining >= 0) {
+            frames = (int) Math.min(frames, dataRemaining / frameBytes);
+        }
+        if (frames <= 0) {
+            return -1;
+        }
+
+        if (channels == 1) {
+            int read = readAligned(ByteBuffer.wrap(out, 0, frames * 2), 2);
+            if (read <= 0) {
+                return -1;
+            }
+            consume(read);
+            return read;
+        }
+
+        if (frameScratch == null || frameScratch.length < frames * frameBytes) {
+            frameScratch = new byte[frames * frameBytes];
+        }
+        int read = readAligned(ByteBuffer.wrap(frameScratch, 0, frames * frameBytes), frameBytes);
+        if (read <= 0) {
+            return -1;
+        }
+        int whole = read / frameBytes;
+        consume((long) whole * frameBytes);
+
+        for (int f = 0; f < whole; f++) {
+            int base = f * frameBytes;
+            int sum = 0;
+            for (int c = 0; c < channels; c++) {
+                int i = base + c * 2;
+                sum += (short) ((frameScratch[i] & 0xFF) | (frameScratch[i + 1] << 8));
+            }
+            int mono = sum / channels;
+            out[f * 2] = (byte) mono;
+            out[f * 2 + 1] = (byte) (mono >> 8);
+        }
+        return whole * 2;
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+        }
+        try {
+            inputStream.close();
+        } catch (IOException ignored) {
+        }
+        try {
+            descriptor.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private static MappedByteBuffer tryMap(FileChannel channel) {
+        try {
+            long size = channel.size();
+            if (size <= 0 || size > Integer.MAX_VALUE) {
+                return null;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            return buffer;
+        } catch (IOException e) {
+            Log.d(TAG, "Memory mapping unavailable, using chunked reads: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void prepareResampler() throws UnsupportedFormatException {
+        if (sampleRate == outputSampleRate) {
+            return;
+        }
+        if (sampleRate < MIN_SAMPLE_RATE || sampleRate > MAX_SAMPLE_RATE) {
+            throw new UnsupportedFormatException("Unsupported sample rate: " + sampleRate + " Hz");
+        }
+        resampler = new LinearResampler(sampleRate, outputSampleRate);
+    }
+
+    /**
+     * Parse a RIFF/WAVE header if present, leaving the source at the start of sample data
+     */
+    private void readHeader() throws IOException {
+        ByteBuffer riff = ByteBuffer.allocate(12).order(ByteOrder.LITTLE_ENDIAN);
+        int sniffed = readSome(riff);
+        while (sniffed > 0 && riff.hasRemaining()) {
+            int n = readSome(riff);
+            if (n <= 0) {
+                break;
+            }
+        }
+        riff.flip();
+
+        String container = compressedContainer(riff);
+        if (container != null) {
+            throw new UnsupportedFormatException(container + " audio is not supported; expected WAV or raw 16-bit PCM");
+        }
+
+        if (riff.remaining() < 12 || riff.getInt(0) != fourCC("RIFF") || riff.getInt(8) != fourCC("WAVE")) {
+            // Headerless PCM - hand the sniffed bytes back to the reader
+            pending.clear();
+            pending.put(riff);
+            pending.flip();
+            totalBytes = mapped != null ? mapped.capacity() : -1;
+            return;
+        }
+
+        ByteBuffer chunkHeader = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+        boolean haveFormat = false;
+        while (true) {
+            chunkHeader.clear();
+            readFully(chunkHeader);
+            chunkHeader.flip();
+            int id = chunkHeader.getInt();
+            long size = chunkHeader.getInt() & 0xFFFFFFFFL;
+
+            if (id == fourCC("fmt ")) {
+                if (size < 16) {
+                    throw new IOException("Malformed WAV fmt chunk");
+                }
+                ByteBuffer fmt = ByteBuffer.allocate((int) Math.min(size, 64)).order(ByteOrder.LITTLE_ENDIAN);
+                readFully(fmt);
+                fmt.flip();
+                skip(size - fmt.limit() + (size & 1));
+
+                int format = fmt.getShort(0) & 0xFFFF;
+                channels = fmt.getShort(2) & 0xFFFF;
+                sampleRate = fmt.getInt(4);
+                int bitsPerSample = fmt.getShort(14) & 0xFFFF;
+
+                if ((format != WAVE_FORMAT_PCM && format != WAVE_FORMAT_EXTENSIBLE)
+                        || bitsPerSample != 16 || channels < 1) {
+                    throw new UnsupportedFormatException("Unsupported WAV format: " + format + ", "
+                            + bitsPerSample + "-bit, " + channels + " channel(s); expected 16-bit PCM");
+                }
+                haveFormat = true;
+            } else if (id == fourCC("data")) {
+                if (!haveFormat) {
+                    throw new IOException("WAV data chunk precedes fmt chunk");
+                }
+                // Streaming writers leave the size as 0 or 0xFFFFFFFF
+                if (size != 0 && size != 0xFFFFFFFFL) {
+                    dataRemaining = size;
+                    totalBytes = size / channels;
+                }
+                return;
+            } else {
+                skip(size + (size & 1));
+            }
+        }
+    }
+
+    /**
+     * Recognise common compressed formats by their leading bytes so they are not mistaken for PCM
+     * @return A description of the format, or null if it is not one of them
+     */
+    private static String compressedContainer(ByteBuffer head) {
+        if (head.remaining() >= 8 && head.getInt(4) == fourCC("ftyp")) {
+            return "MP4/AAC";
+        }
+        if (head.remaining() >= 4) {
+            int magic = head.getInt(0);
+            if (magic == fourCC("OggS")) {
+                return "Ogg";
+            }
+            if (magic == fourCC("fLaC")) {
+                return "FLAC";
+            }
+            if (magic == fourCC("#!AM")) {
+                return "AMR";
+            }
+            if ((magic & 0xFFFFFF) == (fourCC("ID3 ") & 0xFFFFFF)) {
+                return "MP3";
+            }
+        }
+        return null;
+    }
+
+    private int readSome(ByteBuffer dst) throws IOException {
+        int copied = 0;
+        if (pending.hasRemaining()) {
+            int n = Math.min(pending.remaining(), dst.remaining());
+            for (int i = 0; i < n; i++) {
+                dst.put(pending.get());
+            }
+            copied = n;
+            if (!dst.hasRemaining()) {
+                return copied;
+            }
+        }
+
+        if (mapped != null) {
+            int n = Math.min(mapped.remaining(), dst.remaining());
+            if (n == 0) {
+                return copied > 0 ? copied : -1;
+            }
+            ByteBuffer slice = mapped.duplicate();
+            slice.limit(slice.position() + n);
+            dst.put(slice);
+            mapped.position(mapped.position() + n);
+            return copied + n;
+        }
+
+        int n = channel.read(dst);
+        if (n < 0) {
+            return copied > 0 ? copied : -1;
+        }
+        return copied + n;
+    }
+
+    /**
+     * Read at least one byte, continuing until the count is a multiple of align so that
+     * short reads from pipes never split a sample frame. A partial frame at EOF is dropped.
+     */
+    private int readAligned(ByteBuffer dst, int align) throws IOException {
+        int total = readSome(dst);
+        if (total <= 0) {
+            return total;
+        }
+        while (total % align != 0) {
+            int n = readSome(dst);
+            if (n < 0) {
+                return total - total % align;
+            }
+            total += n;
+        }
+        return total;
+    }
+
+    private void readFully(ByteBuffer dst) throws IOException {
+        while (dst.hasRemaining()) {
+            if (readSome(dst) < 0) {
+                throw new EOFException("Unexpected end of audio file");
+            }
+        }
+    }
+
+    private void skip(long bytes) throws IOException {
+        if (bytes <= 0) {
+            return;
+        }
+        if (mapped != null) {
+            if (bytes > mapped.remaining()) {
+                throw new EOFException("Unexpected end of audio file");
+            }
+            mapped.position((int) (mapped.position() + bytes));
+            return;
+        }
+
+        ByteBuffer discard = ByteBuffer.allocate((int) Math.min(bytes, 4096));
+        long left = bytes;
+        while (left > 0) {
+            discard.clear();
+            discard.limit((int) Math.min(left, discard.capacity()));
+            int n = readSome(discard);
+            if (n < 0) {
+                throw new EOFException("Unexpected end of audio file");
+            }
+            left -= n;
+        }
+    }
+
+    private void consume(long bytes) {
+        if (dataRemaining >= 0) {
+            dataRemaining -= bytes;
+        }
+    }
+
+    private static int fourCC(String id) {
+        return (id.charAt(0)) | (id.charAt(1) << 8) | (id.charAt(2) << 16) | (id.charAt(3) << 24);
+    }
+}
@@ -0,0 +1,336 @@
+package com.ocivoice;
+
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Bounded on-disk segment log for PCM captured while no speech session is available.
+ *
+ * Each segment is a single file holding a small header followed by little-endian PCM:
+ * <pre>
+ *   magic "OCIS" (4) | captureStartMillis (8) | sampleRate (4) | PCM ...
+ * </pre>
+ * File names sort in capture order, so eviction and draining are always oldest first.
+ * Sealed segments are fsynced on a background thread so rotation never blocks the capture loop.
+ */
+class AudioSpool {
+    private static final String TAG = "OCIVoiceSpool";
+
+    private static final int MAGIC = 0x5349434F; // "OCIS" little-endian
+    static final int HEADER_SIZE = 16;
+    private static final String SEGMENT_PREFIX = "seg-";
+    private static final String SEGMENT_SUFFIX = ".pcm";
+    // Audio further than this from where the open segment ends starts a new segment
+    private static final long MAX_GAP_MS = 250;
+
+    private final File directory;
+    private final int sampleRate;
+    private final long maxSegmentBytes;
+    private long maxTotalBytes;
+
+    // Segment currently being appended to by the capture thread
+    private File openSegment = null;
+    private FileOutputStream openStream = null;
+    private long openSegmentBytes = 0;
+    private long openSegmentStartMillis = 0;
+    private long sequence = 0;
+    private boolean closed = false;
+
+    // Running total of bytes on disk, so appends never need to stat the directory
+    private long totalBytes = 0;
+
+    private final ByteBuffer pcmBuffer;
+
+    // Syncs and closes sealed segments outside the spool lock
+    private final ExecutorService syncExecutor = Executors.newSingleThreadExecutor();
+
+    /**
+     * A sealed segment ready to be streamed
+     */
+    static class Segment {
+        final File file;
+        final long captureStartMillis;
+        final int sampleRate;
+        final long pcmBytes;
+
+        Segment(File file, long captureStartMillis, int sampleRate, long pcmBytes) {
+            this.file = file;
+            this.captureStartMillis = captureStartMillis;
+            this.sampleRate = sampleRate;
+            this.pcmBytes = pcmBytes;
+        }
+
+        long durationMillis() {
+            return pcmBytes * 500 / sampleRate;
+        }
+    }
+
+    /**
+     * @param directory Directory holding the segment files
+     * @param sampleRate Sample rate of the spooled PCM
+     * @param maxSegmentBytes Size at which a segment is sealed and a new one started
+     * @param maxTotalBytes Upper bound on disk usage across all segments
+     */
+    AudioSpool(File directory, int sampleRate, long maxSegmentBytes, long maxTotalBytes) {
+        this.directory = directory;
+        this.sampleRate = sampleRate;
+        this.maxSegmentBytes = Math.min(maxSegmentBytes, maxTotalBytes);
+        this.maxTotalBytes = maxTotalBytes;
+        this.pcmBuffer = ByteBuffer.allocate((int) Math.min(maxSegmentBytes, 64 * 1024))
+                .order(ByteOrder.LITTLE_ENDIAN);
+
+        if (!directory.exists() && !directory.mkdirs()) {
+            Log.w(TAG, "Could not create spool directory: " + directory);
+        }
+
+        // Segments left over from a previous run still count against the budget
+        for (File file : listSegments()) {
+            totalBytes += file.length();
+        }
+    }
+
+    synchronized void setMaxTotalBytes(long maxTotalBytes) {
+        this.maxTotalBytes = Math.max(maxTotalBytes, maxSegmentBytes);
+        evictOldest(0);
+    }
+
+    /**
+     * Append captured samples, opening a new segment stamped with captureMillis if none is open
+     * @param samples PCM samples
+     * @param count Number of valid samples
+     * @param captureMillis Wall-clock time of the first sample in this chunk
+     */
+    synchronized void append(short[] samples, int count, long captureMillis) {
+        if (closed) {
+            return;
+        }
+        int byteCount = count * 2;
+
+        try {
+            // A segment's timestamps are derived from its start, so it must hold contiguous audio
+            long expectedMillis = openSegmentStartMillis + openSegmentBytes * 500 / sampleRate;
+            if (openStream != null && (openSegmentBytes + byteCount > maxSegmentBytes
+                    || Math.abs(captureMillis - expectedMillis) > MAX_GAP_MS)) {
+                sealLocked();
+            }
+
+            if (openStream == null) {
+                evictOldest(HEADER_SIZE + byteCount);
+                openSegmentLocked(captureMillis);
+            } else {
+                evictOldest(byteCount);
+            }
+
+            int offset = 0;
+            while (offset < count) {
+                pcmBuffer.clear();
+                int n = Math.min(count - offset, pcmBuffer.capacity() / 2);
+                pcmBuffer.asShortBuffer().put(samples, offset, n);
+                openStream.write(pcmBuffer.array(), 0, n * 2);
+                offset += n;
+            }
+            openSegmentBytes += byteCount;
+            totalBytes += byteCount;
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to spool audio: " + e.getMessage());
+            closeQuietly();
+        }
+    }
+
+    /**
+     * Close the segment currently being written so it becomes eligible for draining
+     */
+    synchronized void seal() {
+        if (!closed) {
+            sealLocked();
+        }
+    }
+
+    /**
+     * @return The oldest sealed segment, or null if the backlog is empty
+     */
+    synchronized Segment oldestSealed() {
+        return sealedAfter(null);
+    }
+
+    /**
+     * @param previous A segment returned earlier
+     * @return The next sealed segment in capture order, or null if there is none yet
+     */
+    synchronized Segment nextSealed(Segment previous) {
+        return sealedAfter(previous.file.getName());
+    }
+
+    private Segment sealedAfter(String name) {
+        for (File file : listSegments()) {
+            if (file.equals(openSegment) || (name != null && file.getName().compareTo(name) <= 0)) {
+                continue;
+            }
+
+            Segment segment = readHeader(file);
+            if (segment != null) {
+                return segment;
+            }
+
+            // Unreadable or truncated header - nothing useful to recover
+            Log.w(TAG, "Discarding corrupt segment: " + file.getName());
+            deleteLocked(file);
+        }
+        return null;
+    }
+
+    synchronized void delete(Segment segment) {
+        // May already be gone if it was evicted while being drained
+        if (segment.file.exists() && !deleteLocked(segment.file)) {
+            Log.w(TAG, "Could not delete drained segment: " + segment.file.getName());
+        }
+    }
+
+    /**
+     * Seal the open segment and let pending syncs finish in the background. The spool must not be used afterwards.
+     */
+    synchronized void close() {
+        seal();
+        closed = true;
+        syncExecutor.shutdown();
+    }
+
+    /**
+     * @return Total bytes currently held on disk
+     */
+    synchronized long totalBytes() {
+        return totalBytes;
+    }
+
+    private void openSegmentLocked(long captureMillis) throws IOException {
+        String name = String.format(Locale.US, "%s%013d-%06d%s", SEGMENT_PREFIX, captureMillis, sequence++ % 1000000, SEGMENT_SUFFIX);
+        openSegment = new File(directory, name);
+        openStream = new FileOutputStream(openSegment);
+        openSegmentBytes = 0;
+        openSegmentStartMillis = captureMillis;
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC);
+        header.putLong(captureMillis);
+        header.putInt(sampleRate);
+        openStream.write(header.array());
+        totalBytes += HEADER_SIZE;
+
+        Log.d(TAG, "Opened spool segment " + name);
+    }
+
+    private void sealLocked() {
+        if (openStream == null) {
+            return;
+        }
+
+        final FileOutputStream sealed = openStream;
+        final String name = openSegment.getName();
+        Log.d(TAG, "Sealed spool segment " + name + " (" + openSegmentBytes + " bytes)");
+
+        // The written bytes are already readable through the page cache; only durability waits
+        syncExecutor.execute(() -> {
+            try {
+                sealed.getFD().sync();
+            } catch (IOException e) {
+                Log.w(TAG, "Failed to sync segment " + name + ": " + e.getMessage());
+            }
+            try {
+                sealed.close();
+            } catch (IOException ignored) {
+            }
+        });
+
+        openStream = null;
+        openSegment = null;
+        openSegmentBytes = 0;
+    }
+
+    private void closeQuietly() {
+        if (openStream != null) {
+            try {
+                openStream.close();
+            } catch (IOException ignored) {
+            }
+        }
+        openStream = null;
+        openSegment = null;
+        openSegmentBytes = 0;
+    }
+
+    /**
+     * Delete sealed segments, oldest first, until incomingBytes more will fit in the budget
+     */
+    private void evictOldest(long incomingBytes) {
+        if (totalBytes + incomingBytes <= maxTotalBytes) {
+            return;
+        }
+
+        for (File file : listSegments()) {
+            if (totalBytes + incomingBytes <= maxTotalBytes) {
+                break;
+            }
+            if (file.equals(openSegment)) {
+                continue;
+            }
+            if (deleteLocked(file)) {
+                Log.w(TAG, "Spool full, evicted oldest segment " + file.getName());
+            }
+        }
+    }
+
+    private boolean deleteLocked(File file) {
+        long size = file.length();
+        if (file.delete()) {
+            totalBytes = Math.max(0, totalBytes - size);
+            return true;
+        }
+        return false;
+    }
+
+    private File[] listSegments() {
+        File[] files = directory.listFiles((dir, name) ->
+                name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX));
+        if (files == null) {
+            return new File[0];
+        }
+        Arrays.sort(files);
+        return files;
+    }
+
+    private Segment readHeader(File file) {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining()) {
+                if (channel.read(header) < 0) {
+                    return null;
+                }
+            }
+            header.flip();
+
+            if (header.getInt() != MAGIC) {
+                return null;
+            }
+            long captureStartMillis = header.getLong();
+            int rate = header.getInt();
+            if (rate <= 0) {
+                return null;
+            }
+            return new Segment(file, captureStartMillis, rate, Math.max(0, file.length() - HEADER_SIZE));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.ocivoice;
+
+import android.content.Context;
+import android.util.Log;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import okhttp3.OkHttpClient;
+
+/**
+ * Streams a recorded file through its own OCI Speech session and collects the final results.
+ */
+class FileTranscriptionJob implements Runnable {
+    private static final String TAG = "OCIVoiceFileJob";
+
+    private static final long CONNECT_TIMEOUT_MS = 15000;
+    private static final long FINAL_RESULT_TIMEOUT_MS = 10000;
+    private static final long PROGRESS_INTERVAL_MS = 250;
+    private static final int CHUNK_MILLIS = 100;
+
+    /**
+     * Callbacks from the job thread
+     */
+    interface Callback {
+        void onProgress(String jobId, long bytesSent, long totalBytes);
+
+        /**
+         * @param finals Final transcription entries in the order they were received
+         */
+        void onComplete(String jobId, List<JSONObject> finals);
+
+        void onError(String jobId, String code, String message);
+    }
+
+    private final String jobId;
+    private final Context context;
+    private final OkHttpClient client;
+    private final String uri;
+    private final String region;
+    private final String token;
+    private final String compartmentId;
+    private final float speed;
+    private final AudioEncoder encoder;
+    private final int rawSampleRate;
+    private final int sampleRate;
+    private final Callback callback;
+
+    private final List<JSONObject> finals = new ArrayList<>();
+    private volatile boolean cancelled = false;
+    private volatile TranscriptionStream activeStream = null;
+    private volatile String serviceError = null;
+
+    FileTranscriptionJob(String jobId, Context context, OkHttpClient client, String uri,
+                         String region, String token, String compartmentId,
+                         float speed, AudioEncoder encoder, int rawSampleRate, int sampleRate,
+                         Callback callback) {
+        this.jobId = jobId;
+        this.context = context;
+        this.client = client;
+        this.uri = uri;
+        this.region = region;
+        this.token = token;
+        this.compartmentId = compartmentId;
+        this.speed = speed;
+        this.encoder = encoder;
+        this.rawSampleRate = rawSampleRate;
+        this.sampleRate = sampleRate;
+        this.callback = callback;
+    }
+
+    /**
+     * Stop streaming and abandon the session; the job reports CANCELLED
+     */
+    void cancel() {
+        cancelled = true;
+        TranscriptionStream stream = activeStream;
+        if (stream != null) {
+            stream.cancel();
+        }
+    }
+
+    /**
+     * Cancel and report CANCELLED immediately, for jobs whose run() may never execute
+     * (e.g. still queued when the executor shuts down). The caller must ignore the
+     * duplicate report if run() is already in progress.
+     */
+    void abandon(String message) {
+        cancel();
+        callback.onError(jobId, "CANCELLED", message);
+    }
+
+    /**
+     * Sessions are only driven at sampleRate: WAV files at any other rate, and headerless PCM
+     * whose rawSampleRate differs, are resampled to it while streaming.
+     */
+    @Override
+    public void run() {
+        if (cancelled) {
+            callback.onError(jobId, "CANCELLED", "Transcription cancelled");
+            return;
+        }
+
+        AudioFileSource source;
+        try {
+            source = AudioFileSource.open(context, uri, rawSampleRate, sampleRate);
+        } catch (AudioFileSource.UnsupportedFormatException e) {
+            callback.onError(jobId, "UNSUPPORTED_FORMAT", e.getMessage());
+            return;
+        } catch (IOException e) {
+            Log.e(TAG, "Could not open audio file " + uri, e);
+            callback.onError(jobId, "FILE_ERROR", "Failed to read audio file: " + e.getMessage());
+            return;
+        } catch (SecurityException e) {
+            callback.onError(jobId, "FILE_ERROR", "No permission to read audio file: " + e.getMessage());
+            return;
+        }
+
+        TranscriptionStream stream = new TranscriptionStream(client, region, sampleRate, encoder,
+                token, compartmentId, new TranscriptionStream.Listener() {
+            @Override
+            public void onResult(JSONObject message) {
+                collectFinal(message);
+            }
+
+            @Override
+            public void onError(String error, String message) {
+                serviceError = message;
+            }
+        });
+        stream.setSpeed(speed);
+        activeStream = stream;
+
+        try {
+            if (cancelled) {
+                callback.onError(jobId, "CANCELLED", "Transcription cancelled");
+                return;
+            }
+
+            if (!stream.open(CONNECT_TIMEOUT_MS)) {
+                if (cancelled) {
+                    callback.onError(jobId, "CANCELLED", "Transcription cancelled");
+                } else {
+                    callback.onError(jobId, "CONNECTION_ERROR", serviceError != null
+                            ? serviceError : "Could not open transcription session");
+                }
+                return;
+            }
+
+            long totalBytes = source.getTotalBytes();
+            byte[] chunk = new byte[sampleRate * 2 * CHUNK_MILLIS / 1000];
+            long bytesSent = 0;
+            long lastProgress = 0;
+            boolean interrupted = false;
+
+            int read;
+            while ((read = source.read(chunk, chunk.length)) > 0) {
+                if (cancelled || !stream.sendAudio(chunk, 0, read)) {
+                    interrupted = true;
+                    break;
+                }
+                bytesSent += read;
+
+                long now = System.currentTimeMillis();
+                if (now - lastProgress >= PROGRESS_INTERVAL_MS) {
+                    lastProgress = now;
+                    callback.onProgress(jobId, bytesSent, totalBytes);
+                }
+            }
+
+            if (cancelled) {
+                callback.onError(jobId, "CANCELLED", "Transcription cancelled");
+                return;
+            }
+            // The session ended before the whole file was sent, e.g. ERROR followed by a normal close
+            if (interrupted || stream.isFailed()) {
+                callback.onError(jobId, "CONNECTION_ERROR", serviceError != null
+                        ? serviceError : "Transcription session ended before the file was sent");
+                return;
+            }
+
+            callback.onProgress(jobId, bytesSent, totalBytes >= 0 ? totalBytes : bytesSent);
+            boolean finished = stream.finish(FINAL_RESULT_TIMEOUT_MS);
+
+            if (cancelled) {
+                callback.onError(jobId, "CANCELLED", "Transcription cancelled");
+                return;
+            }
+            if (!finished && (serviceError != null || stream.isFailed() || stream.isClosedByService())) {
+                callback.onError(jobId, "CONNECTION_ERROR", serviceError != null
+                        ? serviceError : "Transcription session ended before the final result");
+                return;
+            }
+
+            List<JSONObject> results;
+            synchronized (finals) {
+                results = new ArrayList<>(finals);
+            }
+            callback.onComplete(jobId, results);
+        } catch (IOException e) {
+            Log.e(TAG, "Error reading audio file", e);
+            callback.onError(jobId, "FILE_ERROR", "Failed to read audio file: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            callback.onError(jobId, "CANCELLED", "Transcription interrupted");
+        } finally {
+            stream.close();
+            activeStream = null;
+            source.close();
+        }
+    }
+
+    private void collectFinal(JSONObject message) {
+        try {
+            if (!message.has("transcriptions")) {
+                return;
+            }
+            JSONObject transcription = message.getJSONArray("transcriptions").getJSONObject(0);
+            if (transcription.getBoolean("isFinal")) {
+                synchronized (finals) {
+                    finals.add(transcription);
+                }
+            }
+        } catch (JSONException e) {
+            Log.e(TAG, "Error handling transcription result", e);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.ocivoice;
+
+/**
+ * Streaming sample-rate converter for mono 16-bit PCM.
+ *
+ * When decimating, a moving average about one output period long runs first as a cheap
+ * anti-alias filter; output samples are then linearly interpolated from the filtered input.
+ * Good enough for speech recognition, not for music. State carries across blocks, so feeding a
+ * file in arbitrary chunks gives the same output as feeding it at once. Not thread-safe.
+ */
+class LinearResampler {
+    private final double step; // Input samples per output sample
+
+    // Moving-average history of the most recent raw samples
+    private final int[] taps;
+    private int tapIndex = 0;
+    private int tapSum = 0;
+
+    private float[] filtered = new float[0];
+    private float previous = 0; // Last filtered sample of the previous block
+    private double position = 0; // Next output position, relative to the current block's start
+
+    LinearResampler(int inputRate, int outputRate) {
+        this.step = (double) inputRate / outputRate;
+        this.taps = new int[Math.max(1, (int) Math.round(step))];
+    }
+
+    /**
+     * @return Largest number of output samples process() can produce for inputCount samples
+     */
+    int maxOutput(int inputCount) {
+        return (int) Math.ceil(inputCount / step) + 2;
+    }
+
+    /**
+     * Convert the next block of input
+     * @param in Input samples
+     * @param count Number of valid input samples
+     * @param out Destination, at least maxOutput(count) long
+     * @return Number of output samples written
+     */
+    int process(short[] in, int count, short[] out) {
+        if (filtered.length < count) {
+            filtered = new float[count];
+        }
+        for (int i = 0; i < count; i++) {
+            tapSum += in[i] - taps[tapIndex];
+            taps[tapIndex] = in[i];
+            tapIndex = (tapIndex + 1) % taps.length;
+            filtered[i] = (float) tapSum / taps.length;
+        }
+
+        // Index -1 stands for the previous block's last sample
+        int written = 0;
+        double p = position;
+        while (p < count - 1) {
+            int index = (int) Math.floor(p);
+            float frac = (float) (p - index);
+            float a = index < 0 ? previous : filtered[index];
+            float b = filtered[index + 1];
+            int value = Math.round(a + (b - a) * frac);
+            out[written++] = (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, value));
+            p += step;
+        }
+
+        if (count > 0) {
+            position = p - count;
+            previous = filtered[count - 1];
+        }
+        return written;
+    }
+}
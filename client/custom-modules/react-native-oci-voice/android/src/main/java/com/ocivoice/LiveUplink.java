@@ -0,0 +1,129 @@
+package com.ocivoice;
+
+import okhttp3.WebSocket;
+import okio.ByteString;
+
+/**
+ * Capture-side uplink for store-and-forward mode.
+ *
+ * Audio captured while the live session is connecting, authenticating or reconnecting is held
+ * in memory and pushed into the live socket ahead of newer audio once it is ready, so a healthy
+ * start or a quick reconnect does not split the utterance. Only when that backlog overflows
+ * (the service has been unreachable for a while) is the oldest audio moved to the disk spool.
+ *
+ * Sending stops while OkHttp's outgoing queue is above a small limit or send() is refused, so
+ * a stalled link backs up here instead of in a queue that is discarded when the socket fails.
+ * The last few seconds that did go out are kept as a replay buffer and spooled when their
+ * session is lost, since the service may not have finalised them (delivery is at-least-once).
+ * Not thread-safe; owned by the capture loop.
+ */
+class LiveUplink {
+    // Roughly one second of PCM; anything queued beyond this waits in the backlog instead
+    private static final long MAX_QUEUED_BYTES = 32 * 1024;
+
+    private final int sampleRate;
+    private final AudioEncoder encoder;
+    private final AudioSpool spool;
+    private final int frameSamples;
+
+    private final PcmRing pending;
+    private final PcmRing replay;
+    private final short[] frame;
+    private final byte[] encoded;
+
+    // Socket the replay buffer was sent on
+    private WebSocket lastSocket = null;
+
+    /**
+     * @param sampleRate Capture sample rate
+     * @param encoder Wire encoding for the live socket
+     * @param spool Where audio goes when the backlog overflows
+     * @param backlogSamples How much audio to hold in memory while the session is not ready
+     * @param replaySamples How much recently sent audio to spool if its session is lost
+     * @param frameSamples Largest chunk sent in one WebSocket message
+     */
+    LiveUplink(int sampleRate, AudioEncoder encoder, AudioSpool spool,
+               int backlogSamples, int replaySamples, int frameSamples) {
+        this.sampleRate = sampleRate;
+        this.encoder = encoder;
+        this.spool = spool;
+        this.frameSamples = frameSamples;
+        this.pending = new PcmRing(backlogSamples, sampleRate);
+        this.replay = new PcmRing(replaySamples, sampleRate);
+        this.frame = new short[frameSamples];
+        this.encoded = new byte[encoder.maxEncodedSize(frameSamples)];
+    }
+
+    /**
+     * Queue a captured chunk and send as much of the backlog as the socket takes
+     * @param samples PCM samples
+     * @param count Number of valid samples
+     * @param endMillis Capture time just after the last sample
+     * @param socket Live socket if the session is streaming, otherwise null
+     */
+    void offer(short[] samples, int count, long endMillis, WebSocket socket) {
+        if (lastSocket != null && socket != lastSocket) {
+            // The session that took the replayed audio is gone, possibly before finalising it
+            spoolReplay();
+        }
+
+        int overflow = pending.size() + count - pending.capacity();
+        if (overflow > 0) {
+            spill(overflow);
+        }
+        pending.write(samples, count, endMillis);
+
+        if (socket != null) {
+            flush(socket);
+        }
+    }
+
+    /**
+     * Capture is ending; keep whatever was never sent
+     * @return Whether anything was written to the spool
+     */
+    boolean close() {
+        boolean spilled = pending.size() > 0;
+        spill(pending.size());
+        return spilled;
+    }
+
+    private void flush(WebSocket socket) {
+        while (pending.size() > 0 && socket.queueSize() <= MAX_QUEUED_BYTES) {
+            long startMillis = pending.startMillis();
+            int n = pending.peek(frame, frameSamples);
+            int length = encoder.encode(frame, n, encoded);
+            if (!socket.send(ByteString.of(encoded, 0, length))) {
+                // Closing or failed; the audio stays queued for the next session or the spool
+                return;
+            }
+            pending.skip(n);
+            replay.write(frame, n, startMillis + n * 1000L / sampleRate);
+            lastSocket = socket;
+        }
+    }
+
+    private void spoolReplay() {
+        long startMillis = replay.startMillis();
+        while (replay.size() > 0) {
+            int n = replay.peek(frame, frameSamples);
+            spool.append(frame, n, startMillis);
+            replay.skip(n);
+            startMillis += n * 1000L / sampleRate;
+        }
+        lastSocket = null;
+    }
+
+    /**
+     * Move the oldest samples from the in-memory backlog to the spool
+     */
+    private void spill(int count) {
+        while (count > 0 && pending.size() > 0) {
+            long startMillis = pending.startMillis();
+            int n = pending.peek(frame, Math.min(count, frameSamples));
+            spool.append(frame, n, startMillis);
+            pending.skip(n);
+            count -= n;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.ocivoice;
+
+/**
+ * 8-bit G.711 mu-law (1 byte per sample, half the bandwidth of raw PCM).
+ *
+ * Only select this when the endpoint accepts mu-law. Encoding is a single lookup into a
+ * table built once from the standard G.711 segment algorithm, indexed by the top 14 bits
+ * of the sample.
+ */
+class MuLawEncoder implements AudioEncoder {
+    static final String NAME = "mulaw";
+
+    private static final int BIAS = 0x84;
+    private static final int CLIP = 32635;
+    private static final byte[] TABLE = new byte[1 << 14];
+
+    static {
+        for (int i = 0; i < TABLE.length; i++) {
+            // Reconstruct the 16-bit sample this index stands for (sign-extended 14 bits)
+            short sample = (short) (i << 2);
+            TABLE[i] = linearToMuLaw(sample);
+        }
+    }
+
+    @Override
+    public String getEncoding(int sampleRate) {
+        return "audio/PCMU;rate=" + sampleRate;
+    }
+
+    @Override
+    public int maxEncodedSize(int sampleCount) {
+        return sampleCount;
+    }
+
+    @Override
+    public int encode(short[] samples, int count, byte[] out) {
+        for (int i = 0; i < count; i++) {
+            out[i] = TABLE[(samples[i] >> 2) & 0x3FFF];
+        }
+        return count;
+    }
+
+    private static byte linearToMuLaw(int sample) {
+        int sign = (sample >> 8) & 0x80;
+        if (sign != 0) {
+            sample = -sample;
+        }
+        if (sample > CLIP) {
+            sample = CLIP;
+        }
+        sample += BIAS;
+
+        int exponent = 7;
+        for (int mask = 0x4000; (sample & mask) == 0 && exponent > 0; mask >>= 1) {
+            exponent--;
+        }
+        int mantissa = (sample >> (exponent + 3)) & 0x0F;
+        return (byte) ~(sign | (exponent << 4) | mantissa);
+    }
+}
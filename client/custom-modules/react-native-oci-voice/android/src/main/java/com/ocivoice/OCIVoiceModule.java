@@ -26,13 +26,15 @@ import com.facebook.react.modules.core.DeviceEventManagerModule;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.io.File;
 import java.io.IOException;
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
-import java.nio.ShortBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
@@ -54,9 +56,25 @@ public class OCIVoiceModule extends ReactContextBaseJavaModule {
     private static final int BUFFER_SIZE = AudioRecord.getMinBufferSize(
             SAMPLE_RATE, CHANNEL_CONFIG, AUDIO_FORMAT) * 2;
     
+    // Store-and-forward configuration
+    private static final String SPOOL_DIR = "oci-voice-spool";
+    private static final long DEFAULT_SPOOL_MAX_BYTES = 20L * 1024 * 1024;
+    private static final long SPOOL_SEGMENT_BYTES = SAMPLE_RATE * 2L * 10; // 10 seconds per segment
+    private static final long MIN_RECONNECT_DELAY_MS = 1000;
+    private static final long MAX_RECONNECT_DELAY_MS = 30000;
+    // Audio held in memory while the live session connects, before overflowing to the spool
+    private static final int LIVE_BACKLOG_SAMPLES = SAMPLE_RATE * 5;
+    // Recently sent audio spooled again if the live session is lost before finalising it
+    private static final int LIVE_REPLAY_SAMPLES = SAMPLE_RATE * 3;
+    // Detects half-open links that would otherwise never fail with readTimeout(0)
+    private static final long PING_INTERVAL_SECONDS = 10;
+    
+    // How long stopListening waits for the service to acknowledge the close
+    private static final long DRAIN_TIMEOUT_MS = 2000;
+    
     // Module state
-    private boolean isInitialized = false;
-    private boolean isListening = false;
+    private volatile boolean isInitialized = false;
+    private final SessionState sessionState = new SessionState();
     private String sessionToken = null;
     private String compartmentId = null;
     private String region = "eu-amsterdam-1"; // Default region
@@ -69,7 +87,27 @@ public class OCIVoiceModule extends ReactContextBaseJavaModule {
     
     // WebSocket components
     private OkHttpClient okHttpClient = new OkHttpClient();
-    private WebSocket webSocket = null;
+    private volatile WebSocket webSocket = null;
+    private volatile AudioEncoder audioEncoder = new PcmEncoder(); // Wire format for live audio
+    // Bumped for every connection so callbacks from superseded sockets can be ignored
+    private final AtomicInteger sessionGeneration = new AtomicInteger();
+    
+    // Store-and-forward components
+    private volatile boolean storeAndForward = false;
+    private volatile AudioSpool audioSpool = null;
+    private volatile SpoolDrainer spoolDrainer = null;
+    private long reconnectDelayMs = MIN_RECONNECT_DELAY_MS; // Only touched on mainHandler
+    
+    // Spectrum analysis for the visualizer (disabled when null)
+    private static final int MAX_SPECTRUM_BANDS = 64;
+    private static final float DEFAULT_SPECTRUM_RATE_HZ = 30.0f;
+    private volatile SpectrumAnalyzer spectrumAnalyzer = null;
+    
+    // File transcription components
+    private static final float DEFAULT_TRANSCRIBE_SPEED = 4.0f;
+    private final ExecutorService transcribeExecutor = Executors.newSingleThreadExecutor();
+    private final Map<String, FileTranscriptionJob> transcriptionJobs = new ConcurrentHashMap<>();
+    private int nextJobId = 1;
     
     // Main thread handler for event dispatch
     private final Handler mainHandler = new Handler(Looper.getMainLooper());
@@ -81,6 +119,7 @@ public class OCIVoiceModule extends ReactContextBaseJavaModule {
                 .connectTimeout(30, TimeUnit.SECONDS)
                 .readTimeout(0, TimeUnit.SECONDS)  // No read timeout for WebSocket
                 .writeTimeout(30, TimeUnit.SECONDS)
+                .pingInterval(PING_INTERVAL_SECONDS, TimeUnit.SECONDS)
                 .build();
     }
     
@@ -135,7 +174,7 @@ public class OCIVoiceModule extends ReactContextBaseJavaModule {
             return;
         }
         
-        if (isListening) {
+        if (sessionState.isActive()) {
             promise.resolve(true); // Already listening
             return;
         }
@@ -154,35 +193,112 @@ public class OCIVoiceModule extends ReactContextBaseJavaModule {
                 promise.reject("MISSING_CREDENTIALS", "Session token and compartment ID are required");
                 return;
             }
+            
+            try {
+                audioEncoder = createEncoder(options);
+            } catch (IllegalArgumentException e) {
+                promise.reject("INVALID_ENCODING", e.getMessage());
+                return;
+            }
+            
+            // Zero or less would silently disable the disk budget
+            if (options.hasKey("spoolMaxBytes") && !(options.getDouble("spoolMaxBytes") > 0)) {
+                promise.reject("INVALID_OPTION", "spoolMaxBytes must be greater than 0");
+                return;
+            }
+            
+            int spectrumBands = options.hasKey("spectrumBands") ? options.getInt("spectrumBands") : 0;
+            if (spectrumBands > 0) {
+                float maxRate = options.hasKey("spectrumMaxRate")
+                        ? (float) options.getDouble("spectrumMaxRate") : DEFAULT_SPECTRUM_RATE_HZ;
+                spectrumAnalyzer = new SpectrumAnalyzer(SAMPLE_RATE, Math.min(spectrumBands, MAX_SPECTRUM_BANDS), maxRate);
+            } else {
+                spectrumAnalyzer = null;
+            }
+            
+            // A previous session still waiting for its close handshake is abandoned
+            if (sessionState.get() == SessionState.State.DRAINING) {
+                forceClose();
+            }
+            
+            if (sessionState.advance(SessionState.State.CONNECTING) == null) {
+                promise.reject("START_ERROR", "Cannot start listening in state " + sessionState.get());
+                return;
+            }
+            
+            storeAndForward = options.hasKey("storeAndForward") && options.getBoolean("storeAndForward");
+            if (storeAndForward) {
+                startStoreAndForward(options);
+            }
               // Connect to WebSocket first
             connectWebSocket();
             
-            // Note: Audio recording will start after successful authentication (CONNECT event)
+            // Note: Audio recording will start after successful authentication (CONNECT event),
+            // except in store-and-forward mode where it starts immediately and is buffered until then
+            if (storeAndForward) {
+                startAudioCapture();
+            }
             
-            isListening = true;
             promise.resolve(true);
         } catch (Exception e) {
             Log.e(TAG, "Error starting listening", e);
+            rollBackStart();
             promise.reject("START_ERROR", "Failed to start listening: " + e.getMessage());
         }
     }
     
+    /**
+     * Undo a startListening that failed after entering CONNECTING, so the next call is not
+     * refused as "Already listening" with no session behind it
+     */
+    private void rollBackStart() {
+        if (!sessionState.isActive()) {
+            return;
+        }
+        
+        mainHandler.removeCallbacks(reconnectRunnable);
+        stopAudioCapture();
+        sessionGeneration.incrementAndGet();
+        
+        WebSocket socket = webSocket;
+        webSocket = null;
+        if (socket != null) {
+            socket.cancel();
+        }
+        sessionState.advance(SessionState.State.CLOSED);
+    }
+    
     /**
      * Stop listening for speech
      * @param promise Promise to resolve with result
      */
     @ReactMethod
     public void stopListening(Promise promise) {
-        if (!isListening) {
+        // Late callbacks see DRAINING from here on and can no longer restart capture
+        if (sessionState.advance(SessionState.State.DRAINING) == null) {
             promise.resolve(true); // Already stopped
             return;
         }
         
         try {
+            mainHandler.removeCallbacks(reconnectRunnable);
+            
             stopAudioCapture();
-            closeWebSocket();
             
-            isListening = false;
+            // Hand whatever was spooled in this session to the drainer
+            if (audioSpool != null) {
+                audioSpool.seal();
+                spoolDrainer.wake();
+            }
+            
+            // Results keep arriving while the service acknowledges the close; onClosed finishes the session
+            if (webSocket != null) {
+                closeWebSocket();
+                mainHandler.postDelayed(drainTimeoutRunnable, DRAIN_TIMEOUT_MS);
+            } else if (sessionState.transition(SessionState.State.DRAINING, SessionState.State.CLOSED)) {
+                emitSpeechEnd();
+            }
+            
             promise.resolve(true);
         } catch (Exception e) {
             Log.e(TAG, "Error stopping listening", e);
@@ -196,13 +312,33 @@ public class OCIVoiceModule extends ReactContextBaseJavaModule {
     public void destroy() {
         Log.d(TAG, "Destroying OCIVoiceModule...");
         
-        if (isListening) {
-            stopAudioCapture();
-            closeWebSocket();
+        mainHandler.removeCallbacks(reconnectRunnable);
+        mainHandler.removeCallbacks(drainTimeoutRunnable);
+        sessionState.advance(SessionState.State.DRAINING);
+        
+        stopAudioCapture();
+        closeWebSocket();
+        sessionGeneration.incrementAndGet();
+        webSocket = null;
+        sessionState.advance(SessionState.State.CLOSED);
+        sessionState.advance(SessionState.State.IDLE);
+        
+        if (spoolDrainer != null) {
+            spoolDrainer.stop();
+            spoolDrainer = null;
+        }
+        if (audioSpool != null) {
+            audioSpool.close();
+            audioSpool = null;
         }
         
         isInitialized = false;
-        isListening = false;
+        
+        // Queued jobs never reach run() after shutdownNow, so settle every promise here
+        for (FileTranscriptionJob job : transcriptionJobs.values()) {
+            job.abandon("Transcription cancelled because the module was destroyed");
+        }
+        transcribeExecutor.shutdownNow();
         
         // Shut down executor and wait for completion
         if (executor != null && !executor.isShutdown()) {
@@ -221,21 +357,129 @@ public class OCIVoiceModule extends ReactContextBaseJavaModule {
         
         Log.d(TAG, "OCIVoiceModule destroyed successfully");
     }
+    
+    /**
+     * Transcribe a recorded WAV or raw 16-bit PCM file through its own OCI Speech session.
+     * Progress is reported through onTranscribeProgress events; audio at other rates is
+     * resampled to 16 kHz.
+     * @param uri file:// or content:// URI, or a plain path
+     * @param options jobId, speed (1 = real time, N = N times real time, 0 = as fast as accepted),
+     *                sampleRate (for headerless PCM, default 16000), token, compartmentId
+     * @param promise Promise to resolve with the transcript
+     */
+    @ReactMethod
+    public void transcribeFile(String uri, ReadableMap options, Promise promise) {
+        String jobId = options.hasKey("jobId") ? options.getString("jobId") : "transcribe-" + (nextJobId++);
+        String token = options.hasKey("token") ? options.getString("token") : sessionToken;
+        String compartment = options.hasKey("compartmentId") ? options.getString("compartmentId") : compartmentId;
+        float speed = options.hasKey("speed") ? (float) options.getDouble("speed") : DEFAULT_TRANSCRIBE_SPEED;
+        
+        if (token == null || compartment == null) {
+            promise.reject("MISSING_CREDENTIALS", "Session token and compartment ID are required");
+            return;
+        }
+        
+        // Only describes headerless PCM; the session itself is always driven at SAMPLE_RATE
+        int rawSampleRate = options.hasKey("sampleRate") ? options.getInt("sampleRate") : SAMPLE_RATE;
+        if (rawSampleRate <= 0) {
+            promise.reject("INVALID_OPTION", "sampleRate must be greater than 0");
+            return;
+        }
+        
+        AudioEncoder encoder;
+        try {
+            encoder = createEncoder(options);
+        } catch (IllegalArgumentException e) {
+            promise.reject("INVALID_ENCODING", e.getMessage());
+            return;
+        }
+        
+        if (transcriptionJobs.containsKey(jobId)) {
+            promise.reject("DUPLICATE_JOB", "A transcription with id " + jobId + " is already running");
+            return;
+        }
+        
+        FileTranscriptionJob job = new FileTranscriptionJob(jobId, getReactApplicationContext(), okHttpClient,
+                uri, region, token, compartment, speed, encoder, rawSampleRate, SAMPLE_RATE, new FileTranscriptionJob.Callback() {
+            @Override
+            public void onProgress(String jobId, long bytesSent, long totalBytes) {
+                emitTranscribeProgress(jobId, bytesSent, totalBytes);
+            }
+            
+            @Override
+            public void onComplete(String jobId, List<JSONObject> finals) {
+                if (transcriptionJobs.remove(jobId) == null) {
+                    return; // Already settled by destroy
+                }
+                
+                StringBuilder transcript = new StringBuilder();
+                WritableArray segments = Arguments.createArray();
+                for (JSONObject transcription : finals) {
+                    String text = transcription.optString("transcription", "");
+                    if (text.isEmpty()) {
+                        continue;
+                    }
+                    if (transcript.length() > 0) {
+                        transcript.append(' ');
+                    }
+                    transcript.append(text);
+                    
+                    WritableMap segment = Arguments.createMap();
+                    segment.putString("text", text);
+                    segment.putDouble("startTimeInMs", transcription.optLong("startTimeInMs", 0));
+                    segment.putDouble("endTimeInMs", transcription.optLong("endTimeInMs", 0));
+                    segments.pushMap(segment);
+                }
+                
+                WritableMap result = Arguments.createMap();
+                result.putString("jobId", jobId);
+                result.putString("transcript", transcript.toString());
+                result.putArray("segments", segments);
+                promise.resolve(result);
+            }
+            
+            @Override
+            public void onError(String jobId, String code, String message) {
+                if (transcriptionJobs.remove(jobId) == null) {
+                    return; // Already settled by destroy
+                }
+                promise.reject(code, message);
+            }
+        });
+        
+        transcriptionJobs.put(jobId, job);
+        try {
+            transcribeExecutor.execute(job);
+        } catch (Exception e) {
+            transcriptionJobs.remove(jobId);
+            Log.e(TAG, "Error starting transcription", e);
+            promise.reject("TRANSCRIBE_ERROR", "Failed to start transcription: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Cancel a running or queued file transcription
+     * @param jobId Id passed to (or generated by) transcribeFile
+     * @param promise Promise to resolve with whether a job was found
+     */
+    @ReactMethod
+    public void cancelTranscription(String jobId, Promise promise) {
+        FileTranscriptionJob job = transcriptionJobs.get(jobId);
+        if (job == null) {
+            promise.resolve(false);
+            return;
+        }
+        
+        job.cancel();
+        promise.resolve(true);
+    }
       /**
      * Connect to OCI Speech WebSocket
      */
     private void connectWebSocket() {
         // Build WebSocket URL
-        String baseUrl = "wss://realtime.aiservice." + region + ".oci.oraclecloud.com/ws/transcribe/stream";
-        String url = baseUrl + "?isAckEnabled=false" +
-                "&partialSilenceThresholdInMs=0" +
-                "&finalSilenceThresholdInMs=1000" +
-                "&stabilizePartialResults=NONE" +
-                "&shouldIgnoreInvalidCustomizations=false" +
-                "&languageCode=en-US" +
-                "&modelDomain=GENERIC" +
-                "&punctuation=NONE" +
-                "&encoding=audio%2Fraw%3Brate%3D16000";
+        String url = TranscriptionStream.buildUrl(region, audioEncoder.getEncoding(SAMPLE_RATE));
+        final int generation = sessionGeneration.incrementAndGet();
         
         Log.d(TAG, "Region: " + region);
         Log.d(TAG, "Session Token: " + (sessionToken != null ? "Present (length: " + sessionToken.length() + ")" : "NULL"));
@@ -253,8 +497,19 @@ public class OCIVoiceModule extends ReactContextBaseJavaModule {
                 Log.d(TAG, "Response code: " + response.code());
                 Log.d(TAG, "Response message: " + response.message());
                 
+                if (!isCurrentSession(generation)
+                        || !sessionState.transition(SessionState.State.CONNECTING, SessionState.State.AUTHENTICATING)) {
+                    Log.d(TAG, "Ignoring onOpen in state " + sessionState.get());
+                    return;
+                }
+                
                 // Small delay to ensure connection is fully established
                 mainHandler.postDelayed(() -> {
+                    if (!isCurrentSession(generation) || sessionState.get() != SessionState.State.AUTHENTICATING) {
+                        Log.d(TAG, "Session changed before authentication, not sending credentials");
+                        return;
+                    }
+                    
                     Log.d(TAG, "Sending authentication message...");
                     
                     // Send authentication message
@@ -277,12 +532,32 @@ public class OCIVoiceModule extends ReactContextBaseJavaModule {
             public void onMessage(WebSocket webSocket, String text) {
                 Log.d(TAG, "Received WebSocket message: " + text);
                 
+                if (!isCurrentSession(generation)) {
+                    Log.d(TAG, "Ignoring message from a superseded session");
+                    return;
+                }
+                
                 try {
                     JSONObject message = new JSONObject(text);
                     
                     // Check for CONNECT event (authentication successful)
                     if (message.has("event") && "CONNECT".equals(message.getString("event"))) {
+                        // Loses the race if stopListening already moved the session on
+                        if (!sessionState.transition(SessionState.State.AUTHENTICATING, SessionState.State.STREAMING)) {
+                            Log.w(TAG, "Ignoring CONNECT in state " + sessionState.get());
+                            return;
+                        }
+                        
                         Log.d(TAG, "OCI Speech authentication successful - CONNECT event received");
+                        mainHandler.post(() -> reconnectDelayMs = MIN_RECONNECT_DELAY_MS);
+                        
+                        // Anything spooled while connecting can now be drained
+                        AudioSpool spool = audioSpool;
+                        if (spool != null) {
+                            spool.seal();
+                            spoolDrainer.wake();
+                        }
+                        
                         emitSpeechStart();
                         return;
                     }
@@ -292,12 +567,19 @@ public class OCIVoiceModule extends ReactContextBaseJavaModule {
                         String errorMsg = message.optString("message", "Unknown error");
                         int errorCode = message.optInt("code", -1);
                         Log.e(TAG, "OCI Speech error - Code: " + errorCode + ", Message: " + errorMsg);
-                        emitSpeechError("service_error", "OCI Speech error: " + errorMsg);
+                        if (sessionState.isActive()) {
+                            emitSpeechError("service_error", "OCI Speech error: " + errorMsg);
+                        }
                         return;
                     }
                     
-                    // Handle transcription results
+                    // Handle transcription results, including those that trail a stop
                     if (message.has("event") && "RESULT".equals(message.getString("event"))) {
+                        SessionState.State state = sessionState.get();
+                        if (state != SessionState.State.STREAMING && state != SessionState.State.DRAINING) {
+                            Log.w(TAG, "Ignoring RESULT in state " + state);
+                            return;
+                        }
                         handleTranscriptionResult(message);
                     }
                 } catch (JSONException e) {
@@ -305,10 +587,31 @@ public class OCIVoiceModule extends ReactContextBaseJavaModule {
                 }
             }
             
+            @Override
+            public void onClosing(WebSocket webSocket, int code, String reason) {
+                // Complete the handshake so onClosed follows instead of sends quietly going nowhere
+                webSocket.close(1000, null);
+            }
+            
             @Override
             public void onClosed(WebSocket webSocket, int code, String reason) {
                 Log.d(TAG, "WebSocket closed: " + code + " " + reason);
-                emitSpeechEnd();
+                
+                if (!isCurrentSession(generation)) {
+                    return;
+                }
+                
+                if (storeAndForward && sessionState.isActive()) {
+                    onLiveSessionLost(generation, "Session closed by service: " + code + " " + reason);
+                    return;
+                }
+                
+                OCIVoiceModule.this.webSocket = null;
+                mainHandler.removeCallbacks(drainTimeoutRunnable);
+                if (sessionState.advance(SessionState.State.CLOSED) != null) {
+                    stopAudioCapture();
+                    emitSpeechEnd();
+                }
             }            @Override
             public void onFailure(WebSocket webSocket, Throwable t, Response response) {
                 String message = t.getMessage();
@@ -335,6 +638,29 @@ public class OCIVoiceModule extends ReactContextBaseJavaModule {
                     Log.w(TAG, "Broken pipe error - this might be a timing issue or authentication problem");
                 }
                 
+                if (!isCurrentSession(generation)) {
+                    return;
+                }
+                
+                if (storeAndForward && sessionState.isActive()) {
+                    onLiveSessionLost(generation, "WebSocket error: " + message);
+                    return;
+                }
+                
+                OCIVoiceModule.this.webSocket = null;
+                mainHandler.removeCallbacks(drainTimeoutRunnable);
+                SessionState.State previous = sessionState.advance(SessionState.State.CLOSED);
+                if (previous == null) {
+                    return;
+                }
+                stopAudioCapture();
+                
+                if (previous == SessionState.State.DRAINING) {
+                    // Stop was already requested; the close just did not complete cleanly
+                    emitSpeechEnd();
+                    return;
+                }
+                
                 emitSpeechError("connection_error", 
                         "WebSocket error: " + message + ", Response: " + responseMessage + " (Code: " + responseCode + ")");
             }
@@ -345,14 +671,51 @@ public class OCIVoiceModule extends ReactContextBaseJavaModule {
     }
     
     /**
-     * Close WebSocket connection
+     * @param generation Generation captured when the socket was created
+     * @return Whether that socket is still the live session's socket
+     */
+    private boolean isCurrentSession(int generation) {
+        return generation == sessionGeneration.get();
+    }
+    
+    /**
+     * Close WebSocket connection. The reference is kept until onClosed so trailing results
+     * can still be matched to this session.
      */
     private void closeWebSocket() {
-        if (webSocket != null) {
-            webSocket.close(1000, "Normal closure");
-            webSocket = null;
+        WebSocket socket = webSocket;
+        if (socket != null) {
+            socket.close(1000, "Normal closure");
         }
     }
+    
+    /**
+     * Finish a session immediately without waiting for the close handshake
+     */
+    private void forceClose() {
+        mainHandler.removeCallbacks(drainTimeoutRunnable);
+        sessionGeneration.incrementAndGet();
+        
+        WebSocket socket = webSocket;
+        webSocket = null;
+        if (socket != null) {
+            socket.cancel();
+        }
+        
+        if (sessionState.advance(SessionState.State.CLOSED) != null) {
+            emitSpeechEnd();
+        }
+    }
+    
+    /**
+     * Gives up on a close handshake the service never completed
+     */
+    private final Runnable drainTimeoutRunnable = () -> {
+        if (sessionState.get() == SessionState.State.DRAINING) {
+            Log.w(TAG, "Timed out waiting for WebSocket close, cancelling");
+            forceClose();
+        }
+    };
       /**
      * Start audio capture
      */
@@ -387,26 +750,29 @@ public class OCIVoiceModule extends ReactContextBaseJavaModule {
                 shouldContinue = true;
                 isRecording = true;
                 Log.d(TAG, "AudioRecord started successfully");                // Start audio processing in a background thread
+                // The loop owns this reference; stopAudioCapture releases it, after which read() fails
+                final AudioRecord record = audioRecord;
+                final AudioEncoder encoder = audioEncoder;
+                final AudioSpool spool = audioSpool;
                 executor.execute(() -> {
                     short[] buffer = new short[BUFFER_SIZE / 2];
+                    byte[] encoded = new byte[encoder.maxEncodedSize(buffer.length)];
+                    LiveUplink uplink = storeAndForward && spool != null
+                            ? new LiveUplink(SAMPLE_RATE, encoder, spool,
+                                    LIVE_BACKLOG_SAMPLES, LIVE_REPLAY_SAMPLES, buffer.length)
+                            : null;
                     
-                    while (shouldContinue && webSocket != null) {
-                        // Check if we should continue before each read operation
-                        if (!shouldContinue) {
-                            Log.d(TAG, "shouldContinue is false, breaking audio loop");
+                    while (shouldContinue) {
+                        // Single volatile read per iteration, no lock
+                        SessionState.State state = sessionState.get();
+                        if (!isCaptureState(state)) {
+                            Log.d(TAG, "Session is " + state + ", breaking audio loop");
                             break;
                         }
                         
-                        synchronized (audioLock) {
-                            if (audioRecord == null || !isRecording) {
-                                Log.d(TAG, "AudioRecord is null or not recording, breaking audio loop");
-                                break;
-                            }
-                        }
-                        
                         int readResult;
                         try {
-                            readResult = audioRecord.read(buffer, 0, buffer.length);
+                            readResult = record.read(buffer, 0, buffer.length);
                         } catch (IllegalStateException e) {
                             Log.w(TAG, "AudioRecord read failed - likely stopped: " + e.getMessage());
                             break;
@@ -417,25 +783,53 @@ public class OCIVoiceModule extends ReactContextBaseJavaModule {
                             float volume = calculateVolume(buffer, readResult);
                             emitVolumeChanged(volume);
                             
-                            // Send audio data over WebSocket
-                            if (webSocket != null && shouldContinue) {
-                                try {
-                                    ByteBuffer byteBuffer = ByteBuffer.allocate(readResult * 2);
-                                    byteBuffer.order(ByteOrder.LITTLE_ENDIAN);
-                                    
-                                    byteBuffer.asShortBuffer().put(buffer, 0, readResult);
-                                    webSocket.send(ByteString.of(byteBuffer.array(), 0, readResult * 2));
-                                } catch (Exception e) {
-                                    Log.w(TAG, "Failed to send audio data over WebSocket: " + e.getMessage());
-                                    break;
+                            SpectrumAnalyzer analyzer = spectrumAnalyzer;
+                            if (analyzer != null) {
+                                float[] bands = analyzer.analyze(buffer, readResult, System.currentTimeMillis());
+                                if (bands != null) {
+                                    emitSpectrum(bands);
                                 }
                             }
+                            
+                            // The state may have changed while read() was blocked
+                            state = sessionState.get();
+                            WebSocket socket = webSocket;
+                            boolean canSend = socket != null
+                                    && (state == SessionState.State.STREAMING || state == SessionState.State.DRAINING);
+                            
+                            // Audio from before the session was ready goes out ahead of this chunk;
+                            // only what the backlog cannot hold is spooled for the drainer
+                            if (uplink != null) {
+                                uplink.offer(buffer, readResult, System.currentTimeMillis(), canSend ? socket : null);
+                                continue;
+                            }
+                            if (!canSend) {
+                                continue;
+                            }
+                            
+                            // Send audio data over WebSocket
+                            try {
+                                int encodedLength = encoder.encode(buffer, readResult, encoded);
+                                socket.send(ByteString.of(encoded, 0, encodedLength));
+                            } catch (Exception e) {
+                                Log.w(TAG, "Failed to send audio data over WebSocket: " + e.getMessage());
+                                break;
+                            }
                         } else if (readResult < 0) {
                             Log.w(TAG, "AudioRecord read returned error: " + readResult);
                             break;
                         }
                     }
                     
+                    // Audio the session never took is handed to the drainer rather than dropped
+                    if (uplink != null && uplink.close()) {
+                        spool.seal();
+                        SpoolDrainer drainer = spoolDrainer;
+                        if (drainer != null) {
+                            drainer.wake();
+                        }
+                    }
+                    
                     Log.d(TAG, "Audio capture loop ended - AudioRecord cleanup will be handled by stopAudioCapture()");
                 });
             } catch (Exception e) {
@@ -444,6 +838,17 @@ public class OCIVoiceModule extends ReactContextBaseJavaModule {
                 isRecording = false;
             }
         }
+    }
+    
+    /**
+     * @return Whether the capture loop should keep running in this session state
+     */
+    private boolean isCaptureState(SessionState.State state) {
+        if (state == SessionState.State.STREAMING || state == SessionState.State.DRAINING) {
+            return true;
+        }
+        // Store-and-forward captures (and spools) while still connecting or reconnecting
+        return storeAndForward && state.isActive();
     }    /**
      * Stop audio capture
      */
@@ -492,6 +897,108 @@ public class OCIVoiceModule extends ReactContextBaseJavaModule {
         }
     }
     
+    /**
+     * Create the spool and drainer on first use and refresh their settings
+     * @param options Options passed to startListening
+     */
+    private void startStoreAndForward(ReadableMap options) {
+        long maxBytes = options.hasKey("spoolMaxBytes")
+                ? (long) options.getDouble("spoolMaxBytes") : DEFAULT_SPOOL_MAX_BYTES;
+        
+        if (audioSpool == null) {
+            File directory = new File(getReactApplicationContext().getFilesDir(), SPOOL_DIR);
+            audioSpool = new AudioSpool(directory, SAMPLE_RATE, SPOOL_SEGMENT_BYTES, maxBytes);
+            spoolDrainer = new SpoolDrainer(okHttpClient, audioSpool, new SpoolDrainer.Callback() {
+                @Override
+                public void onBacklogResult(JSONObject message, long captureMillis) {
+                    handleTranscriptionResult(message, captureMillis);
+                }
+                
+                @Override
+                public void onConnectivityRestored() {
+                    mainHandler.post(() -> {
+                        if (storeAndForward && sessionState.get() == SessionState.State.CONNECTING
+                                && webSocket == null) {
+                            mainHandler.removeCallbacks(reconnectRunnable);
+                            reconnectRunnable.run();
+                        }
+                    });
+                }
+            });
+        } else {
+            audioSpool.setMaxTotalBytes(maxBytes);
+        }
+        
+        if (options.hasKey("drainSpeed")) {
+            spoolDrainer.setSpeed((float) options.getDouble("drainSpeed"));
+        }
+        spoolDrainer.setEncoder(audioEncoder);
+        spoolDrainer.updateCredentials(region, sessionToken, compartmentId);
+        spoolDrainer.start();
+    }
+    
+    /**
+     * The live session dropped while listening in store-and-forward mode.
+     * Capture keeps running into the spool and a reconnect is scheduled.
+     * @param generation Generation of the socket that closed or failed
+     * @param reason Description of what happened
+     */
+    private void onLiveSessionLost(int generation, String reason) {
+        // Fall back to CONNECTING; a stop that won the race leaves nothing to do
+        if (sessionState.advance(SessionState.State.CONNECTING) == null
+                && sessionState.get() != SessionState.State.CONNECTING) {
+            return;
+        }
+        if (isCurrentSession(generation)) {
+            webSocket = null;
+        }
+        
+        Log.w(TAG, "Live session lost, spooling audio: " + reason);
+        
+        mainHandler.post(() -> {
+            if (!sessionState.isActive()) {
+                return;
+            }
+            
+            // Capture may never have started if authentication did not complete
+            startAudioCapture();
+            
+            emitSpeechSpooling(reason);
+            mainHandler.removeCallbacks(reconnectRunnable);
+            mainHandler.postDelayed(reconnectRunnable, reconnectDelayMs);
+            reconnectDelayMs = Math.min(reconnectDelayMs * 2, MAX_RECONNECT_DELAY_MS);
+        });
+    }
+    
+    /**
+     * Reopen the live session after it was lost in store-and-forward mode
+     */
+    private final Runnable reconnectRunnable = () -> {
+        if (!storeAndForward || sessionState.get() != SessionState.State.CONNECTING || webSocket != null) {
+            return;
+        }
+        
+        Log.d(TAG, "Attempting to reconnect live session");
+        connectWebSocket();
+    };
+    
+    /**
+     * Pick the uplink encoder from the "encoding" option
+     * @param options Options containing an optional "encoding" of "pcm" (default) or "mulaw"
+     * @return Encoder to use
+     */
+    private AudioEncoder createEncoder(ReadableMap options) {
+        String name = options.hasKey("encoding") ? options.getString("encoding") : PcmEncoder.NAME;
+        
+        if (PcmEncoder.NAME.equals(name)) {
+            return new PcmEncoder();
+        }
+        if (MuLawEncoder.NAME.equals(name)) {
+            return new MuLawEncoder();
+        }
+        throw new IllegalArgumentException("Unsupported encoding: " + name);
+    }
+    
     /**
      * Calculate audio volume
      * @param buffer Audio buffer
@@ -504,7 +1011,7 @@ public class OCIVoiceModule extends ReactContextBaseJavaModule {
             sum += buffer[i] * buffer[i];
         }
         
-        double rms = Math.sqrt(sum / size);
+        double rms = Math.sqrt((double) sum / size);
         float volume = (float) (rms / 32767.0); // Normalize to 0.0 - 1.0
         
         return Math.min(1.0f, volume);
@@ -515,6 +1022,15 @@ public class OCIVoiceModule extends ReactContextBaseJavaModule {
      * @param message JSON message from WebSocket
      */
     private void handleTranscriptionResult(JSONObject message) {
+        handleTranscriptionResult(message, -1);
+    }
+    
+    /**
+     * Handle transcription results, tagging them with their original capture time when known
+     * @param message JSON message from WebSocket
+     * @param captureMillis Wall-clock capture time of the result's first sample, or -1 for live audio
+     */
+    private void handleTranscriptionResult(JSONObject message, long captureMillis) {
         try {
             if (!message.has("transcriptions")) {
                 return;
@@ -529,6 +1045,11 @@ public class OCIVoiceModule extends ReactContextBaseJavaModule {
             result.putArray("value", value);
             result.putBoolean("isFinal", isFinal);
             
+            if (captureMillis >= 0) {
+                result.putDouble("captureTimestamp", captureMillis);
+                result.putBoolean("fromBacklog", true);
+            }
+            
             if (isFinal) {
                 Log.d(TAG, "Final transcription result: " + text);
                 emitSpeechResults(result);
@@ -606,6 +1127,64 @@ public class OCIVoiceModule extends ReactContextBaseJavaModule {
         });
     }
     
+    /**
+     * Emit spooling event - audio is being kept on disk until the service is reachable
+     * @param message Reason the live session is unavailable
+     */
+    private void emitSpeechSpooling(String message) {
+        WritableMap spoolingMap = Arguments.createMap();
+        spoolingMap.putString("message", message);
+        spoolingMap.putDouble("backlogBytes", audioSpool != null ? audioSpool.totalBytes() : 0);
+        
+        mainHandler.post(() -> {
+            getReactApplicationContext()
+                    .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
+                    .emit("onSpeechSpooling", spoolingMap);
+        });
+    }
+    
+    /**
+     * Emit file transcription progress event
+     * @param jobId Transcription job id
+     * @param bytesSent PCM bytes streamed so far
+     * @param totalBytes Total PCM bytes, or -1 if unknown
+     */
+    private void emitTranscribeProgress(String jobId, long bytesSent, long totalBytes) {
+        WritableMap progressMap = Arguments.createMap();
+        progressMap.putString("jobId", jobId);
+        progressMap.putDouble("bytesSent", bytesSent);
+        progressMap.putDouble("totalBytes", totalBytes);
+        progressMap.putDouble("progress", totalBytes > 0 ? Math.min(1.0, (double) bytesSent / totalBytes) : -1);
+        
+        mainHandler.post(() -> {
+            getReactApplicationContext()
+                    .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
+                    .emit("onTranscribeProgress", progressMap);
+        });
+    }
+    
+    /**
+     * Emit spectrum event
+     * @param bands Band levels (0.0 - 1.0), lowest frequency first
+     */
+    private void emitSpectrum(float[] bands) {
+        // Copy out of the analyzer's shared array before it is reused on the next frame
+        WritableArray bandArray = Arguments.createArray();
+        for (float band : bands) {
+            bandArray.pushDouble(band);
+        }
+        WritableMap spectrumMap = Arguments.createMap();
+        spectrumMap.putArray("bands", bandArray);
+        
+        mainHandler.post(() -> {
+            ReactApplicationContext context = getReactApplicationContext();
+            if (context != null && context.hasActiveCatalystInstance()) {
+                context.getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
+                        .emit("onSpeechSpectrum", spectrumMap);
+            }
+        });
+    }
+    
     /**
      * Emit volume changed event
      * @param volume Volume level (0.0 - 1.0)
@@ -0,0 +1,28 @@
+package com.ocivoice;
+
+/**
+ * Raw 16-bit little-endian PCM, the service's default encoding (2 bytes per sample)
+ */
+class PcmEncoder implements AudioEncoder {
+    static final String NAME = "pcm";
+
+    @Override
+    public String getEncoding(int sampleRate) {
+        return "audio/raw;rate=" + sampleRate;
+    }
+
+    @Override
+    public int maxEncodedSize(int sampleCount) {
+        return sampleCount * 2;
+    }
+
+    @Override
+    public int encode(short[] samples, int count, byte[] out) {
+        for (int i = 0; i < count; i++) {
+            short sample = samples[i];
+            out[2 * i] = (byte) sample;
+            out[2 * i + 1] = (byte) (sample >> 8);
+        }
+        return count * 2;
+    }
+}
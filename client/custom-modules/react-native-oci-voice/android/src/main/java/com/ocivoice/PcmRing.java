@@ -0,0 +1,79 @@
+package com.ocivoice;
+
+/**
+ * Fixed-capacity FIFO of contiguous mono PCM that also tracks when its samples were captured.
+ * Writing into a full ring overwrites the oldest samples. Not thread-safe; owned by one thread.
+ */
+class PcmRing {
+    private final short[] samples;
+    private final int sampleRate;
+    private int head = 0; // Index of the oldest sample
+    private int size = 0;
+    private long endMillis = 0; // Capture time just after the newest sample
+
+    PcmRing(int capacity, int sampleRate) {
+        this.samples = new short[capacity];
+        this.sampleRate = sampleRate;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int capacity() {
+        return samples.length;
+    }
+
+    /**
+     * @return Capture time of the oldest sample
+     */
+    long startMillis() {
+        return endMillis - size * 1000L / sampleRate;
+    }
+
+    /**
+     * Append samples, dropping the oldest ones if the ring overflows
+     * @param src PCM samples
+     * @param count Number of samples to append
+     * @param chunkEndMillis Capture time just after the last appended sample
+     */
+    void write(short[] src, int count, long chunkEndMillis) {
+        int from = Math.max(0, count - samples.length);
+        int n = count - from;
+        int overflow = Math.max(0, size + n - samples.length);
+        skip(overflow);
+
+        int tail = (head + size) % samples.length;
+        int first = Math.min(n, samples.length - tail);
+        System.arraycopy(src, from, samples, tail, first);
+        System.arraycopy(src, from + first, samples, 0, n - first);
+        size += n;
+        endMillis = chunkEndMillis;
+    }
+
+    /**
+     * Copy the oldest samples without removing them
+     * @return Number of samples copied
+     */
+    int peek(short[] dst, int max) {
+        int n = Math.min(max, size);
+        int first = Math.min(n, samples.length - head);
+        System.arraycopy(samples, head, dst, 0, first);
+        System.arraycopy(samples, 0, dst, first, n - first);
+        return n;
+    }
+
+    /**
+     * Remove the oldest n samples
+     */
+    void skip(int n) {
+        n = Math.min(n, size);
+        head = (head + n) % samples.length;
+        size -= n;
+    }
+
+    void clear() {
+        head = 0;
+        size = 0;
+    }
+}
@@ -0,0 +1,87 @@
+package com.ocivoice;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Lock-free lifecycle of the live speech session.
+ *
+ * <pre>
+ *   IDLE -> CONNECTING -> AUTHENTICATING -> STREAMING -> DRAINING -> CLOSED
+ * </pre>
+ * Any active state may also go straight to CLOSED, and in store-and-forward mode a lost
+ * session drops back to CONNECTING. Transitions are compare-and-set, so callbacks that
+ * arrive late (for example a CONNECT after stopListening) lose the race and are rejected
+ * instead of resurrecting the session. Reads are a single volatile load, cheap enough for
+ * the capture loop.
+ */
+class SessionState {
+    enum State {
+        IDLE,
+        CONNECTING,
+        AUTHENTICATING,
+        STREAMING,
+        DRAINING,
+        CLOSED;
+
+        /**
+         * @return Whether a session has been started and not yet stopped
+         */
+        boolean isActive() {
+            return this == CONNECTING || this == AUTHENTICATING || this == STREAMING;
+        }
+
+        boolean canTransitionTo(State next) {
+            switch (this) {
+                case IDLE:
+                    return next == CONNECTING || next == CLOSED;
+                case CONNECTING:
+                    return next == AUTHENTICATING || next == DRAINING || next == CLOSED;
+                case AUTHENTICATING:
+                    return next == STREAMING || next == CONNECTING || next == DRAINING || next == CLOSED;
+                case STREAMING:
+                    return next == CONNECTING || next == DRAINING || next == CLOSED;
+                case DRAINING:
+                    return next == CLOSED;
+                case CLOSED:
+                    return next == CONNECTING || next == IDLE;
+                default:
+                    return false;
+            }
+        }
+    }
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.IDLE);
+
+    State get() {
+        return state.get();
+    }
+
+    boolean isActive() {
+        return state.get().isActive();
+    }
+
+    /**
+     * Move from an expected state to another
+     * @return Whether this call made the transition; false if the state had already changed
+     *         or the transition is not allowed
+     */
+    boolean transition(State from, State to) {
+        return from.canTransitionTo(to) && state.compareAndSet(from, to);
+    }
+
+    /**
+     * Move from whatever the current state is, if the transition is allowed
+     * @return The state that was left, or null if the transition was rejected
+     */
+    State advance(State to) {
+        while (true) {
+            State current = state.get();
+            if (!current.canTransitionTo(to)) {
+                return null;
+            }
+            if (state.compareAndSet(current, to)) {
+                return current;
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.ocivoice;
+
+/**
+ * Log-spaced band energies for the waveform visualizer, computed on the capture thread.
+ *
+ * All tables (window, twiddles, bit reversal, band edges) are built once in the constructor
+ * and {@link #analyze} works in preallocated arrays, so the per-frame path does not allocate.
+ * Not thread-safe; owned by the capture loop.
+ */
+class SpectrumAnalyzer {
+    static final int FFT_SIZE = 512;
+
+    private static final int LOG2_FFT_SIZE = 9;
+    private static final float MIN_FREQUENCY_HZ = 80.0f;
+    private static final float FLOOR_DB = -80.0f;
+
+    private final int bandCount;
+    private final long minIntervalMs;
+    private long lastAnalysisMs = 0;
+
+    private final float[] window = new float[FFT_SIZE];
+    private final float[] cosTable = new float[FFT_SIZE / 2];
+    private final float[] sinTable = new float[FFT_SIZE / 2];
+    private final int[] bitReverse = new int[FFT_SIZE];
+
+    // First FFT bin of each band; band b covers [bandStart[b], bandStart[b + 1])
+    private final int[] bandStart;
+
+    private final float[] re = new float[FFT_SIZE];
+    private final float[] im = new float[FFT_SIZE];
+    private final float[] bands;
+
+    /**
+     * @param sampleRate Capture sample rate
+     * @param bandCount Number of output bands
+     * @param maxRateHz Maximum number of analyses per second
+     */
+    SpectrumAnalyzer(int sampleRate, int bandCount, float maxRateHz) {
+        this.bandCount = bandCount;
+        this.minIntervalMs = maxRateHz > 0 ? (long) (1000 / maxRateHz) : 0;
+        this.bands = new float[bandCount];
+        this.bandStart = new int[bandCount + 1];
+
+        for (int i = 0; i < FFT_SIZE; i++) {
+            window[i] = (float) (0.5 - 0.5 * Math.cos(2 * Math.PI * i / (FFT_SIZE - 1)));
+            bitReverse[i] = Integer.reverse(i) >>> (32 - LOG2_FFT_SIZE);
+        }
+        for (int i = 0; i < FFT_SIZE / 2; i++) {
+            cosTable[i] = (float) Math.cos(2 * Math.PI * i / FFT_SIZE);
+            sinTable[i] = (float) -Math.sin(2 * Math.PI * i / FFT_SIZE);
+        }
+
+        // Log-spaced edges from MIN_FREQUENCY_HZ to Nyquist, at least one bin per band
+        float binHz = (float) sampleRate / FFT_SIZE;
+        float nyquist = sampleRate / 2.0f;
+        int maxBin = FFT_SIZE / 2;
+        double ratio = Math.log(nyquist / MIN_FREQUENCY_HZ);
+        for (int b = 0; b <= bandCount; b++) {
+            double hz = MIN_FREQUENCY_HZ * Math.exp(ratio * b / bandCount);
+            int bin = (int) Math.round(hz / binHz);
+            int minimum = b == 0 ? 1 : bandStart[b - 1] + 1;
+            bandStart[b] = Math.min(Math.max(bin, minimum), maxBin);
+        }
+    }
+
+    /**
+     * Analyse the most recent FFT_SIZE samples of a frame if the rate cap allows it
+     * @param samples Captured PCM
+     * @param count Number of valid samples
+     * @param nowMs Current time, used for rate limiting
+     * @return Band levels in 0.0 - 1.0 (shared array, overwritten on the next call), or null if skipped
+     */
+    float[] analyze(short[] samples, int count, long nowMs) {
+        if (nowMs - lastAnalysisMs < minIntervalMs) {
+            return null;
+        }
+        lastAnalysisMs = nowMs;
+
+        // Load windowed samples in bit-reversed order, zero-padding short frames
+        int start = Math.max(0, count - FFT_SIZE);
+        int available = count - start;
+        for (int i = 0; i < FFT_SIZE; i++) {
+            float sample = i < available ? samples[start + i] / 32768.0f : 0.0f;
+            re[bitReverse[i]] = sample * window[i];
+            im[bitReverse[i]] = 0.0f;
+        }
+
+        // Iterative radix-2 Cooley-Tukey
+        for (int size = 2; size <= FFT_SIZE; size <<= 1) {
+            int half = size >> 1;
+            int step = FFT_SIZE / size;
+            for (int base = 0; base < FFT_SIZE; base += size) {
+                for (int k = 0; k < half; k++) {
+                    float wr = cosTable[k * step];
+                    float wi = sinTable[k * step];
+                    int even = base + k;
+                    int odd = even + half;
+                    float tr = wr * re[odd] - wi * im[odd];
+                    float ti = wr * im[odd] + wi * re[odd];
+                    re[odd] = re[even] - tr;
+                    im[odd] = im[even] - ti;
+                    re[even] += tr;
+                    im[even] += ti;
+                }
+            }
+        }
+
+        // Mean power per band, mapped from FLOOR_DB..0 dBFS onto 0..1
+        float scale = 2.0f / (FFT_SIZE * 0.5f); // Hann coherent gain is 0.5
+        for (int b = 0; b < bandCount; b++) {
+            float power = 0.0f;
+            int from = bandStart[b];
+            int to = Math.max(bandStart[b + 1], from + 1);
+            for (int k = from; k < to && k < FFT_SIZE / 2; k++) {
+                float mr = re[k] * scale;
+                float mi = im[k] * scale;
+                power += mr * mr + mi * mi;
+            }
+            power /= (to - from);
+
+            float db = power > 0 ? (float) (10 * Math.log10(power)) : FLOOR_DB;
+            bands[b] = Math.max(0.0f, Math.min(1.0f, (db - FLOOR_DB) / -FLOOR_DB));
+        }
+        return bands;
+    }
+}
@@ -0,0 +1,355 @@
+package com.ocivoice;
+
+import android.util.Log;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.OkHttpClient;
+
+/**
+ * Background worker that streams spooled segments to OCI Speech once connectivity returns.
+ *
+ * Consecutive segments of one recording share a single session, so an utterance that crosses a
+ * segment boundary is transcribed whole. Each segment's position on the session timeline maps
+ * result times back to capture time, and a segment is deleted only once a final result has
+ * covered its last sample (or the session finished cleanly). Delivery is at-least-once; results
+ * for audio already delivered by an earlier, failed attempt are suppressed.
+ */
+class SpoolDrainer {
+    private static final String TAG = "OCIVoiceDrainer";
+
+    private static final long CONNECT_TIMEOUT_MS = 15000;
+    private static final long FINAL_RESULT_TIMEOUT_MS = 10000;
+    private static final long MIN_BACKOFF_MS = 1000;
+    private static final long MAX_BACKOFF_MS = 30000;
+    private static final int CHUNK_MILLIS = 100;
+    // Segments closer than this in capture time are treated as one continuous recording
+    private static final long CONTIGUOUS_TOLERANCE_MS = 500;
+
+    /**
+     * Callbacks from the drain thread
+     */
+    interface Callback {
+        /**
+         * A result for spooled audio
+         * @param message RESULT message from the service
+         * @param captureMillis Wall-clock capture time of the result's first sample
+         */
+        void onBacklogResult(JSONObject message, long captureMillis);
+
+        /**
+         * A drain session authenticated, so the service is reachable again
+         */
+        void onConnectivityRestored();
+    }
+
+    private final OkHttpClient client;
+    private final AudioSpool spool;
+    private final Callback callback;
+    private final Object wakeLock = new Object();
+
+    private ExecutorService executor = null;
+    private volatile boolean running = false;
+    private volatile TranscriptionStream activeStream = null;
+
+    private volatile String region = null;
+    private volatile String token = null;
+    private volatile String compartmentId = null;
+    private volatile float speed = 4.0f;
+    private volatile AudioEncoder encoder = new PcmEncoder();
+
+    // Capture time up to which final results have been delivered, across attempts
+    private volatile long deliveredUpToMillis = Long.MIN_VALUE;
+
+    /**
+     * A segment's place on the current session's audio timeline
+     */
+    private static class Streamed {
+        final AudioSpool.Segment segment;
+        final long sessionOffsetMs;
+        long endOffsetMs = Long.MAX_VALUE; // Set once the whole segment has been sent
+
+        Streamed(AudioSpool.Segment segment, long sessionOffsetMs) {
+            this.segment = segment;
+            this.sessionOffsetMs = sessionOffsetMs;
+        }
+    }
+
+    SpoolDrainer(OkHttpClient client, AudioSpool spool, Callback callback) {
+        this.client = client;
+        this.spool = spool;
+        this.callback = callback;
+    }
+
+    void updateCredentials(String region, String token, String compartmentId) {
+        this.region = region;
+        this.token = token;
+        this.compartmentId = compartmentId;
+        wake();
+    }
+
+    /**
+     * @param encoder Wire encoding for drained audio (segments are always stored as PCM)
+     */
+    void setEncoder(AudioEncoder encoder) {
+        this.encoder = encoder;
+    }
+
+    /**
+     * @param speed Multiple of real time to drain at, 0 or less for as fast as the service accepts
+     */
+    void setSpeed(float speed) {
+        this.speed = speed;
+    }
+
+    synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        executor = Executors.newSingleThreadExecutor();
+        executor.execute(this::drainLoop);
+    }
+
+    /**
+     * Re-check the spool now instead of waiting out the current backoff
+     */
+    void wake() {
+        synchronized (wakeLock) {
+            wakeLock.notifyAll();
+        }
+    }
+
+    synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+
+        TranscriptionStream stream = activeStream;
+        if (stream != null) {
+            stream.cancel();
+        }
+        wake();
+
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(2, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        executor = null;
+    }
+
+    private void drainLoop() {
+        long backoffMs = MIN_BACKOFF_MS;
+
+        while (running) {
+            AudioSpool.Segment segment = token != null ? spool.oldestSealed() : null;
+
+            if (segment == null) {
+                // Nothing to do until new audio is spooled or credentials arrive
+                sleep(MAX_BACKOFF_MS);
+                continue;
+            }
+
+            boolean drained;
+            try {
+                drained = drainRun(segment);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            if (drained) {
+                backoffMs = MIN_BACKOFF_MS;
+            } else if (running) {
+                Log.d(TAG, "Drain failed, retrying in " + backoffMs + "ms");
+                sleep(backoffMs);
+                backoffMs = Math.min(backoffMs * 2, MAX_BACKOFF_MS);
+            }
+        }
+    }
+
+    /**
+     * Stream first and every contiguous sealed segment after it through one session, deleting
+     * each segment once the service has finalised its last sample
+     * @return Whether the run completed; false if it should be retried after a backoff
+     */
+    private boolean drainRun(AudioSpool.Segment first) throws InterruptedException {
+        final List<Streamed> streamed = new CopyOnWriteArrayList<>();
+        final AtomicLong finalisedOffsetMs = new AtomicLong(-1);
+        final int bytesPerSecond = first.sampleRate * 2;
+
+        TranscriptionStream stream = new TranscriptionStream(client, region, first.sampleRate, encoder,
+                token, compartmentId, new TranscriptionStream.Listener() {
+            @Override
+            public void onResult(JSONObject message) {
+                JSONObject transcription = firstTranscription(message);
+                if (transcription == null || streamed.isEmpty()) {
+                    return;
+                }
+                long startMs = transcription.optLong("startTimeInMs", 0);
+                boolean isFinal = transcription.optBoolean("isFinal", false);
+
+                if (transcription.has("endTimeInMs")) {
+                    long endMs = transcription.optLong("endTimeInMs", startMs);
+                    long captureEndMillis = captureMillisAt(streamed, endMs);
+                    // Already delivered by an earlier attempt at this audio
+                    if (captureEndMillis <= deliveredUpToMillis) {
+                        return;
+                    }
+                    if (isFinal) {
+                        deliveredUpToMillis = captureEndMillis;
+                        // Results arrive on a single reader thread, so this cannot race itself
+                        if (endMs > finalisedOffsetMs.get()) {
+                            finalisedOffsetMs.set(endMs);
+                        }
+                    }
+                }
+                callback.onBacklogResult(message, captureMillisAt(streamed, startMs));
+            }
+
+            @Override
+            public void onError(String error, String message) {
+                Log.w(TAG, "Service error while draining: " + message);
+            }
+        });
+        stream.setSpeed(speed);
+        activeStream = stream;
+
+        int deleted = 0;
+        try {
+            if (!stream.open(CONNECT_TIMEOUT_MS)) {
+                return false;
+            }
+            callback.onConnectivityRestored();
+
+            long sentBytes = 0;
+            ByteBuffer chunk = ByteBuffer.allocate(bytesPerSecond * CHUNK_MILLIS / 1000);
+            AudioSpool.Segment segment = first;
+
+            while (segment != null && running) {
+                Streamed current = new Streamed(segment, sentBytes * 1000 / bytesPerSecond);
+                streamed.add(current);
+                Log.d(TAG, "Draining " + segment.file.getName() + " at " + current.sessionOffsetMs + "ms");
+
+                try (RandomAccessFile raf = new RandomAccessFile(segment.file, "r");
+                     FileChannel channel = raf.getChannel()) {
+                    channel.position(AudioSpool.HEADER_SIZE);
+
+                    while (running) {
+                        chunk.clear();
+                        int read = channel.read(chunk);
+                        if (read < 0) {
+                            break;
+                        }
+                        if (read > 0 && !stream.sendAudio(chunk.array(), 0, read)) {
+                            deleteFinalised(streamed, deleted, finalisedOffsetMs.get());
+                            return false;
+                        }
+                        sentBytes += read;
+                        deleted = deleteFinalised(streamed, deleted, finalisedOffsetMs.get());
+                    }
+                } catch (IOException e) {
+                    // Evicted or unreadable; end the run with what was sent
+                    Log.w(TAG, "Could not read segment " + segment.file.getName() + ": " + e.getMessage());
+                    current.endOffsetMs = sentBytes * 1000 / bytesPerSecond;
+                    break;
+                }
+                current.endOffsetMs = sentBytes * 1000 / bytesPerSecond;
+
+                AudioSpool.Segment next = spool.nextSealed(segment);
+                segment = next != null && continues(segment, next) ? next : null;
+            }
+
+            if (!running) {
+                return false;
+            }
+
+            if (!stream.finish(FINAL_RESULT_TIMEOUT_MS)
+                    && (stream.isFailed() || stream.isClosedByService())) {
+                // Ended before finalising everything; keep what is not yet covered by a final result
+                deleteFinalised(streamed, deleted, finalisedOffsetMs.get());
+                return false;
+            }
+
+            // Finalised, or the healthy session had nothing left to finalise (e.g. trailing silence)
+            deleteFinalised(streamed, deleted, Long.MAX_VALUE);
+            return true;
+        } finally {
+            stream.close();
+            activeStream = null;
+        }
+    }
+
+    /**
+     * Delete streamed segments, in order, whose audio ends at or before upToOffsetMs
+     * @param deleted Number of leading segments already deleted
+     * @return The new number of deleted segments
+     */
+    private int deleteFinalised(List<Streamed> streamed, int deleted, long upToOffsetMs) {
+        while (deleted < streamed.size()) {
+            Streamed entry = streamed.get(deleted);
+            if (entry.endOffsetMs > upToOffsetMs) {
+                break;
+            }
+            spool.delete(entry.segment);
+            deleted++;
+        }
+        return deleted;
+    }
+
+    /**
+     * @return Whether next picks up where previous left off, so both belong in one session
+     */
+    private static boolean continues(AudioSpool.Segment previous, AudioSpool.Segment next) {
+        long gap = next.captureStartMillis - (previous.captureStartMillis + previous.durationMillis());
+        return next.sampleRate == previous.sampleRate && Math.abs(gap) <= CONTIGUOUS_TOLERANCE_MS;
+    }
+
+    /**
+     * Map a position on the session's audio timeline to wall-clock capture time
+     */
+    private static long captureMillisAt(List<Streamed> streamed, long offsetMs) {
+        Streamed match = streamed.get(0);
+        for (Streamed entry : streamed) {
+            if (entry.sessionOffsetMs > offsetMs) {
+                break;
+            }
+            match = entry;
+        }
+        return match.segment.captureStartMillis + (offsetMs - match.sessionOffsetMs);
+    }
+
+    private static JSONObject firstTranscription(JSONObject message) {
+        JSONArray transcriptions = message.optJSONArray("transcriptions");
+        return transcriptions != null ? transcriptions.optJSONObject(0) : null;
+    }
+
+    private void sleep(long millis) {
+        synchronized (wakeLock) {
+            try {
+                wakeLock.wait(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+        }
+    }
+}
@@ -0,0 +1,326 @@
+package com.ocivoice;
+
+import android.util.Log;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.WebSocket;
+import okhttp3.WebSocketListener;
+import okio.ByteString;
+
+/**
+ * A self-contained OCI Speech session used to stream audio that is not coming from the live
+ * microphone (spooled backlog, recorded files). All methods except the listener callbacks are
+ * blocking and meant to be called from a single background thread.
+ */
+class TranscriptionStream {
+    private static final String TAG = "OCIVoiceStream";
+
+    // Keep OkHttp's outgoing queue well below its 16 MiB hard limit
+    private static final long MAX_QUEUED_BYTES = 256 * 1024;
+    private static final long QUIET_PERIOD_MS = 500;
+
+    /**
+     * Callbacks for messages received on the stream. Invoked on OkHttp threads.
+     */
+    interface Listener {
+        void onResult(JSONObject message);
+
+        void onError(String error, String message);
+    }
+
+    private final OkHttpClient client;
+    private final String url;
+    private final String token;
+    private final String compartmentId;
+    private final Listener listener;
+    private final AudioEncoder encoder;
+
+    private final CountDownLatch openLatch = new CountDownLatch(1);
+    private final CountDownLatch connectLatch = new CountDownLatch(1);
+
+    private WebSocket webSocket = null;
+    private volatile boolean failed = false;
+    private volatile boolean closed = false;
+    private volatile boolean closedByService = false;
+    private volatile boolean finalRequested = false;
+    private volatile boolean finalReceived = false;
+    private volatile long lastMessageMillis = 0;
+
+    // Encoder scratch, grown to the largest chunk seen
+    private short[] sampleScratch = new short[0];
+    private byte[] encodedScratch = new byte[0];
+
+    // Pacing state, measured in PCM bytes so it is independent of the wire encoding
+    private final int bytesPerSecond;
+    private float speed = 1.0f;
+    private long paceStartNanos = 0;
+    private long bytesSent = 0;
+
+    /**
+     * Build the OCI realtime transcription URL shared by every session
+     * @param region OCI region
+     * @param encoding Wire encoding, as reported by {@link AudioEncoder#getEncoding}
+     * @return WebSocket URL
+     */
+    static String buildUrl(String region, String encoding) {
+        String baseUrl = "wss://realtime.aiservice." + region + ".oci.oraclecloud.com/ws/transcribe/stream";
+        return baseUrl + "?isAckEnabled=false" +
+                "&partialSilenceThresholdInMs=0" +
+                "&finalSilenceThresholdInMs=1000" +
+                "&stabilizePartialResults=NONE" +
+                "&shouldIgnoreInvalidCustomizations=false" +
+                "&languageCode=en-US" +
+                "&modelDomain=GENERIC" +
+                "&punctuation=NONE" +
+                "&encoding=" + urlEncode(encoding);
+    }
+
+    private static String urlEncode(String value) {
+        try {
+            return URLEncoder.encode(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    TranscriptionStream(OkHttpClient client, String region, int sampleRate, AudioEncoder encoder,
+                        String token, String compartmentId, Listener listener) {
+        this.client = client;
+        this.encoder = encoder;
+        this.url = buildUrl(region, encoder.getEncoding(sampleRate));
+        this.token = token;
+        this.compartmentId = compartmentId;
+        this.listener = listener;
+        this.bytesPerSecond = sampleRate * 2;
+    }
+
+    /**
+     * Set the send rate relative to real time
+     * @param speed 1.0 for real time, N for N times real time, 0 or less for as fast as the service accepts
+     */
+    void setSpeed(float speed) {
+        this.speed = speed;
+    }
+
+    /**
+     * Connect and authenticate, blocking until the service sends CONNECT
+     * @param timeoutMs Maximum time to wait
+     * @return Whether the session is ready to receive audio
+     */
+    boolean open(long timeoutMs) throws InterruptedException {
+        Request request = new Request.Builder()
+                .url(url)
+                .build();
+
+        webSocket = client.newWebSocket(request, new WebSocketListener() {
+            @Override
+            public void onOpen(WebSocket webSocket, Response response) {
+                openLatch.countDown();
+            }
+
+            @Override
+            public void onMessage(WebSocket webSocket, String text) {
+                lastMessageMillis = System.currentTimeMillis();
+
+                try {
+                    JSONObject message = new JSONObject(text);
+                    String event = message.optString("event");
+
+                    if ("CONNECT".equals(event)) {
+                        connectLatch.countDown();
+                    } else if ("ERROR".equals(event)) {
+                        String errorMsg = message.optString("message", "Unknown error");
+                        Log.e(TAG, "OCI Speech error - Code: " + message.optInt("code", -1) + ", Message: " + errorMsg);
+                        listener.onError("service_error", "OCI Speech error: " + errorMsg);
+                    } else if ("RESULT".equals(event)) {
+                        if (finalRequested && isFinalResult(message)) {
+                            finalReceived = true;
+                        }
+                        listener.onResult(message);
+                    }
+                } catch (JSONException e) {
+                    Log.e(TAG, "Error parsing WebSocket message", e);
+                }
+            }
+
+            @Override
+            public void onClosing(WebSocket webSocket, int code, String reason) {
+                // The service will send nothing more; anything not yet finalised is lost
+                closedByService = true;
+                closed = true;
+                webSocket.close(1000, null);
+                release();
+            }
+
+            @Override
+            public void onClosed(WebSocket webSocket, int code, String reason) {
+                closed = true;
+                release();
+            }
+
+            @Override
+            public void onFailure(WebSocket webSocket, Throwable t, Response response) {
+                Log.w(TAG, "Stream failed: " + t.getMessage());
+                failed = true;
+                release();
+            }
+        });
+
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        if (!openLatch.await(timeoutMs, TimeUnit.MILLISECONDS) || failed) {
+            return false;
+        }
+
+        // Same settle delay the live session uses before authenticating
+        Thread.sleep(100);
+
+        try {
+            JSONObject authMessage = new JSONObject();
+            authMessage.put("authenticationType", "TOKEN");
+            authMessage.put("token", token);
+            authMessage.put("compartmentId", compartmentId);
+            webSocket.send(authMessage.toString());
+        } catch (JSONException e) {
+            Log.e(TAG, "Error creating authentication message", e);
+            return false;
+        }
+
+        long remaining = Math.max(0, deadline - System.currentTimeMillis());
+        return connectLatch.await(remaining, TimeUnit.MILLISECONDS) && !failed && !closed;
+    }
+
+    /**
+     * Encode and send 16-bit little-endian PCM, sleeping as needed to honour the configured
+     * speed and OkHttp's queue
+     * @return False if the session is no longer usable
+     */
+    boolean sendAudio(byte[] data, int offset, int length) throws InterruptedException {
+        if (failed || closed) {
+            return false;
+        }
+
+        if (paceStartNanos == 0) {
+            paceStartNanos = System.nanoTime();
+        }
+
+        if (speed > 0) {
+            long dueNanos = (long) (bytesSent * 1_000_000_000.0 / (bytesPerSecond * speed));
+            long aheadMs = (dueNanos - (System.nanoTime() - paceStartNanos)) / 1_000_000;
+            if (aheadMs > 0) {
+                Thread.sleep(aheadMs);
+            }
+        }
+
+        while (webSocket.queueSize() > MAX_QUEUED_BYTES) {
+            if (failed || closed) {
+                return false;
+            }
+            Thread.sleep(10);
+        }
+
+        int samples = length / 2;
+        if (sampleScratch.length < samples) {
+            sampleScratch = new short[samples];
+            encodedScratch = new byte[encoder.maxEncodedSize(samples)];
+        }
+        for (int i = 0; i < samples; i++) {
+            int at = offset + 2 * i;
+            sampleScratch[i] = (short) ((data[at] & 0xFF) | (data[at + 1] << 8));
+        }
+        int encoded = encoder.encode(sampleScratch, samples, encodedScratch);
+
+        if (!webSocket.send(ByteString.of(encodedScratch, 0, encoded))) {
+            return false;
+        }
+        bytesSent += length;
+        return true;
+    }
+
+    /**
+     * Ask the service to finalise whatever it has buffered, then wait for the final result
+     * @param timeoutMs Maximum time to wait
+     * @return Whether a final result arrived before the timeout
+     */
+    boolean finish(long timeoutMs) throws InterruptedException {
+        if (failed || closed) {
+            return false;
+        }
+
+        try {
+            JSONObject finalRequest = new JSONObject();
+            finalRequest.put("event", "SEND_FINAL_RESULT");
+            finalRequested = true;
+            webSocket.send(finalRequest.toString());
+        } catch (JSONException e) {
+            Log.e(TAG, "Error creating final result request", e);
+            return false;
+        }
+
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (System.currentTimeMillis() < deadline) {
+            if (failed || closed) {
+                return finalReceived;
+            }
+
+            // Late results for earlier utterances may trail the final one; wait until things go quiet
+            if (finalReceived && System.currentTimeMillis() - lastMessageMillis >= QUIET_PERIOD_MS) {
+                return true;
+            }
+            Thread.sleep(50);
+        }
+        return finalReceived;
+    }
+
+    /**
+     * Abort the session immediately, discarding anything still queued
+     */
+    void cancel() {
+        failed = true;
+        if (webSocket != null) {
+            webSocket.cancel();
+        }
+        release();
+    }
+
+    void close() {
+        if (webSocket != null && !failed) {
+            webSocket.close(1000, "Normal closure");
+        }
+        closed = true;
+        release();
+    }
+
+    boolean isFailed() {
+        return failed;
+    }
+
+    /**
+     * @return Whether the service ended the session, as opposed to {@link #close} or {@link #cancel}
+     */
+    boolean isClosedByService() {
+        return closedByService;
+    }
+
+    private void release() {
+        openLatch.countDown();
+        connectLatch.countDown();
+    }
+
+    private static boolean isFinalResult(JSONObject message) {
+        try {
+            return message.getJSONArray("transcriptions").getJSONObject(0).optBoolean("isFinal", false);
+        } catch (JSONException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.ocivoice;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+import org.junit.Test;
+
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Encode cost versus wire size for each uplink encoder, on 20 ms frames at the capture rate.
+ * Prints one line per encoder; the numbers are indicative (JVM, not ART on a device).
+ * Skipped unless enabled with ./gradlew test -Pocivoice.benchmark
+ */
+public class AudioEncoderBenchmark {
+    private static final int SAMPLE_RATE = 16000;
+    private static final int FRAME_SAMPLES = SAMPLE_RATE / 50;
+    private static final int WARMUP_FRAMES = 50000;
+    private static final int TIMED_FRAMES = 200000;
+
+    @Test
+    public void compareEncoders() {
+        assumeTrue("Benchmark disabled", Boolean.getBoolean("ocivoice.benchmark"));
+
+        short[] frame = speechLikeFrame();
+
+        int pcmBytes = measure("pcm", new PcmEncoder(), frame);
+        int muLawBytes = measure("mulaw", new MuLawEncoder(), frame);
+
+        assertEquals(FRAME_SAMPLES * 2, pcmBytes);
+        assertEquals(FRAME_SAMPLES, muLawBytes);
+    }
+
+    private static int measure(String name, AudioEncoder encoder, short[] frame) {
+        byte[] out = new byte[encoder.maxEncodedSize(frame.length)];
+        int bytes = 0;
+        long checksum = 0;
+
+        for (int i = 0; i < WARMUP_FRAMES; i++) {
+            bytes = encoder.encode(frame, frame.length, out);
+            checksum += out[i % bytes];
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < TIMED_FRAMES; i++) {
+            bytes = encoder.encode(frame, frame.length, out);
+            checksum += out[i % bytes];
+        }
+        long elapsed = System.nanoTime() - start;
+
+        double nsPerSample = (double) elapsed / ((long) TIMED_FRAMES * frame.length);
+        System.out.println(String.format(Locale.US,
+                "%-6s %6.2f ns/sample  %4d bytes per 20 ms frame  %4d kbit/s  (checksum %d)",
+                name, nsPerSample, bytes, bytes * 8 * 50 / 1000, checksum));
+        return bytes;
+    }
+
+    /**
+     * A few harmonics plus noise, spread over most of the 16-bit range
+     */
+    private static short[] speechLikeFrame() {
+        Random random = new Random(42);
+        short[] frame = new short[FRAME_SAMPLES];
+        for (int i = 0; i < frame.length; i++) {
+            double t = (double) i / SAMPLE_RATE;
+            double value = 9000 * Math.sin(2 * Math.PI * 180 * t)
+                    + 5000 * Math.sin(2 * Math.PI * 720 * t)
+                    + 2500 * Math.sin(2 * Math.PI * 2400 * t)
+                    + 1500 * random.nextGaussian();
+            frame[i] = (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, value));
+        }
+        return frame;
+    }
+}
@@ -0,0 +1,60 @@
+package com.ocivoice;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class LinearResamplerTest {
+    private static short[] sine(int rate, int frequency, int count) {
+        short[] samples = new short[count];
+        for (int i = 0; i < count; i++) {
+            samples[i] = (short) (10000 * Math.sin(2 * Math.PI * frequency * i / rate));
+        }
+        return samples;
+    }
+
+    private static short[] resample(LinearResampler resampler, short[] input, int blockSize) {
+        short[] result = new short[0];
+        for (int offset = 0; offset < input.length; offset += blockSize) {
+            int count = Math.min(blockSize, input.length - offset);
+            short[] block = Arrays.copyOfRange(input, offset, offset + count);
+            short[] out = new short[resampler.maxOutput(count)];
+            int produced = resampler.process(block, count, out);
+            result = Arrays.copyOf(result, result.length + produced);
+            System.arraycopy(out, 0, result, result.length - produced, produced);
+        }
+        return result;
+    }
+
+    @Test
+    public void decimatesToTargetRate() {
+        short[] output = resample(new LinearResampler(48000, 16000), sine(48000, 440, 48000), 4800);
+
+        assertEquals(16000, output.length, 1);
+        for (int i = 10; i < output.length - 10; i++) {
+            double expected = 10000 * Math.sin(2 * Math.PI * 440 * i / 16000.0);
+            assertTrue("sample " + i, Math.abs(output[i] - expected) < 700);
+        }
+    }
+
+    @Test
+    public void blockSizeDoesNotChangeOutput() {
+        short[] input = sine(44100, 300, 44100);
+
+        short[] whole = resample(new LinearResampler(44100, 16000), input, input.length);
+        short[] chunked = resample(new LinearResampler(44100, 16000), input, 1237);
+
+        assertArrayEquals(whole, chunked);
+    }
+
+    @Test
+    public void upsamplesByInterpolating() {
+        short[] output = resample(new LinearResampler(8000, 16000), new short[]{0, 100, 200, 300}, 4);
+
+        assertArrayEquals(new short[]{0, 50, 100, 150, 200, 250}, output);
+    }
+}
@@ -0,0 +1,72 @@
+package com.ocivoice;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class MuLawEncoderTest {
+    private static final int BIAS = 0x84;
+    private static final int CLIP = 32635;
+
+    /**
+     * Reference G.711 mu-law expansion (ITU-T G.711 / Sun g711.c ulaw2linear)
+     */
+    private static int decode(byte code) {
+        int u = ~code & 0xFF;
+        int exponent = (u >> 4) & 0x07;
+        int mantissa = u & 0x0F;
+        int magnitude = (((mantissa << 3) + BIAS) << exponent) - BIAS;
+        return (u & 0x80) != 0 ? -magnitude : magnitude;
+    }
+
+    @Test
+    public void decodesWithinHalfAStepOfEveryInput() {
+        short[] samples = new short[1 << 16];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = (short) (i + Short.MIN_VALUE);
+        }
+
+        MuLawEncoder encoder = new MuLawEncoder();
+        byte[] out = new byte[encoder.maxEncodedSize(samples.length)];
+        assertEquals(samples.length, encoder.encode(samples, samples.length, out));
+
+        for (int i = 0; i < samples.length; i++) {
+            int input = Math.max(-CLIP, Math.min(CLIP, samples[i]));
+            int decoded = decode(out[i]);
+            int exponent = ((~out[i] & 0xFF) >> 4) & 0x07;
+
+            // G.711 reconstructs at the middle of a step of 2^(exponent + 3); the lookup table
+            // drops the bottom two input bits, which adds up to 3 more
+            int bound = (1 << (exponent + 2)) + 3;
+            assertTrue("sample " + samples[i] + " decoded to " + decoded,
+                    Math.abs(decoded - input) <= bound);
+        }
+    }
+
+    @Test
+    public void preservesSignAndOrder() {
+        MuLawEncoder encoder = new MuLawEncoder();
+        short[] samples = new short[1 << 16];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = (short) (i + Short.MIN_VALUE);
+        }
+        byte[] out = new byte[samples.length];
+        encoder.encode(samples, samples.length, out);
+
+        int last = Integer.MIN_VALUE;
+        for (int i = 0; i < samples.length; i++) {
+            int decoded = decode(out[i]);
+            assertTrue("not monotonic at " + samples[i], decoded >= last);
+            last = decoded;
+        }
+        assertEquals(0, decode(out[-Short.MIN_VALUE]));
+    }
+
+    @Test
+    public void usesOneBytePerSample() {
+        MuLawEncoder encoder = new MuLawEncoder();
+        assertEquals(320, encoder.maxEncodedSize(320));
+        assertEquals("audio/PCMU;rate=16000", encoder.getEncoding(16000));
+    }
+}
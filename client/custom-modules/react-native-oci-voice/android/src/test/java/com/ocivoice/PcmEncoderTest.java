@@ -0,0 +1,39 @@
+package com.ocivoice;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class PcmEncoderTest {
+    @Test
+    public void roundTripsEverySampleExactly() {
+        short[] samples = new short[1 << 16];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = (short) (i + Short.MIN_VALUE);
+        }
+
+        PcmEncoder encoder = new PcmEncoder();
+        byte[] out = new byte[encoder.maxEncodedSize(samples.length)];
+        int written = encoder.encode(samples, samples.length, out);
+
+        assertEquals(samples.length * 2, written);
+        for (int i = 0; i < samples.length; i++) {
+            short decoded = (short) ((out[2 * i] & 0xFF) | (out[2 * i + 1] << 8));
+            assertEquals("sample " + i, samples[i], decoded);
+        }
+    }
+
+    @Test
+    public void encodesOnlyCountSamples() {
+        short[] samples = {1, 2, 3, 4};
+        byte[] out = {9, 9, 9, 9, 9, 9, 9, 9};
+
+        assertEquals(4, new PcmEncoder().encode(samples, 2, out));
+        assertEquals(9, out[4]);
+    }
+
+    @Test
+    public void reportsRawEncoding() {
+        assertEquals("audio/raw;rate=16000", new PcmEncoder().getEncoding(16000));
+    }
+}
@@ -0,0 +1,60 @@
+package com.ocivoice;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class PcmRingTest {
+    private static short[] ramp(int from, int count) {
+        short[] samples = new short[count];
+        for (int i = 0; i < count; i++) {
+            samples[i] = (short) (from + i);
+        }
+        return samples;
+    }
+
+    @Test
+    public void keepsOrderAcrossWrapAround() {
+        PcmRing ring = new PcmRing(8, 1000);
+        short[] out = new short[8];
+
+        ring.write(ramp(0, 6), 6, 6);
+        ring.skip(4);
+        ring.write(ramp(6, 5), 5, 11);
+
+        assertEquals(7, ring.size());
+        assertEquals(7, ring.peek(out, 8));
+        for (int i = 0; i < 7; i++) {
+            assertEquals(4 + i, out[i]);
+        }
+    }
+
+    @Test
+    public void overwritesOldestWhenFull() {
+        PcmRing ring = new PcmRing(4, 1000);
+        short[] out = new short[4];
+
+        ring.write(ramp(0, 3), 3, 3);
+        ring.write(ramp(3, 3), 3, 6);
+        assertEquals(4, ring.peek(out, 4));
+        assertEquals(2, out[0]);
+        assertEquals(5, out[3]);
+
+        ring.write(ramp(10, 9), 9, 19);
+        assertEquals(4, ring.peek(out, 4));
+        assertEquals(15, out[0]);
+        assertEquals(18, out[3]);
+    }
+
+    @Test
+    public void tracksCaptureTimeOfOldestSample() {
+        PcmRing ring = new PcmRing(16000, 16000);
+
+        ring.write(new short[1600], 1600, 10_100);
+        ring.write(new short[1600], 1600, 10_200);
+        assertEquals(10_000, ring.startMillis());
+
+        ring.skip(800);
+        assertEquals(10_050, ring.startMillis());
+    }
+}
@@ -0,0 +1,227 @@
+package com.ocivoice;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+
+/**
+ * Races the transitions the module actually makes against each other:
+ * advance(CONNECTING) from startListening, transition(AUTHENTICATING -> STREAMING) when CONNECT
+ * arrives, advance(DRAINING) from stopListening and advance(CLOSED) from onFailure.
+ */
+public class SessionStateTest {
+    private static final int THREADS = 6;
+    private static final int ROUNDS = 20000;
+
+    private static final int CONNECT = 0;
+    private static final int STOP = 1;
+    private static final int FAILURE = 2;
+
+    /**
+     * What one thread does in a round
+     */
+    private interface Attempt {
+        /**
+         * @return The state left by a winning transition, or null if the attempt lost
+         */
+        SessionState.State run(SessionState state, int thread);
+    }
+
+    /**
+     * Checks the outcome of a round
+     */
+    private interface RoundCheck {
+        void verify(SessionState state, SessionState.State[] previous);
+    }
+
+    @Test
+    public void concurrentStartIsWonOnce() throws Exception {
+        race(SessionState.State.IDLE,
+                (state, thread) -> state.advance(SessionState.State.CONNECTING),
+                (state, previous) -> {
+                    assertEquals(1, winners(previous, 0, 1));
+                    assertEquals(SessionState.State.CONNECTING, state.get());
+                });
+    }
+
+    @Test
+    public void concurrentConnectIsWonOnce() throws Exception {
+        race(SessionState.State.AUTHENTICATING,
+                (state, thread) -> connect(state),
+                (state, previous) -> {
+                    assertEquals(1, winners(previous, 0, 1));
+                    assertEquals(SessionState.State.STREAMING, state.get());
+                });
+    }
+
+    @Test
+    public void concurrentStopIsWonOnce() throws Exception {
+        race(SessionState.State.STREAMING,
+                (state, thread) -> state.advance(SessionState.State.DRAINING),
+                (state, previous) -> {
+                    assertEquals(1, winners(previous, 0, 1));
+                    assertEquals(SessionState.State.DRAINING, state.get());
+                });
+    }
+
+    @Test
+    public void connectStopAndFailureRaceToOneOutcome() throws Exception {
+        race(SessionState.State.AUTHENTICATING,
+                (state, thread) -> {
+                    switch (thread % 3) {
+                        case CONNECT:
+                            return connect(state);
+                        case STOP:
+                            return state.advance(SessionState.State.DRAINING);
+                        default:
+                            return state.advance(SessionState.State.CLOSED);
+                    }
+                },
+                (state, previous) -> {
+                    int connects = winners(previous, CONNECT, 3);
+                    int stops = winners(previous, STOP, 3);
+                    assertTrue("CONNECT won " + connects + " times", connects <= 1);
+                    assertTrue("stop won " + stops + " times", stops <= 1);
+                    assertEquals("failure must close exactly once", 1, winners(previous, FAILURE, 3));
+                    assertEquals(SessionState.State.CLOSED, state.get());
+
+                    SessionState.State stopFrom = winner(previous, STOP, 3);
+                    if (stopFrom != null) {
+                        // A stop that saw AUTHENTICATING came before any CONNECT, which must then lose
+                        assertEquals(stopFrom == SessionState.State.STREAMING ? 1 : 0, connects);
+                    }
+                    SessionState.State closedFrom = winner(previous, FAILURE, 3);
+                    if (closedFrom == SessionState.State.AUTHENTICATING) {
+                        assertEquals(0, connects + stops);
+                    }
+                });
+    }
+
+    @Test
+    public void connectAfterDrainingIsAlwaysRejected() throws Exception {
+        race(SessionState.State.AUTHENTICATING,
+                (state, thread) -> {
+                    if (thread == 0) {
+                        return state.advance(SessionState.State.DRAINING);
+                    }
+                    // Keep delivering CONNECT until the stop lands, and afterwards too
+                    SessionState.State won = null;
+                    for (int i = 0; i < 64; i++) {
+                        boolean sawDraining = state.get() == SessionState.State.DRAINING;
+                        SessionState.State result = connect(state);
+                        if (result != null) {
+                            assertFalse("CONNECT after DRAINING resurrected the session", sawDraining);
+                            won = result;
+                        }
+                    }
+                    return won;
+                },
+                (state, previous) -> {
+                    assertNotNull("stop must always win from an active state", previous[0]);
+                    assertEquals(SessionState.State.DRAINING, state.get());
+                    assertTrue(winners(previous, 1, 1) <= 1);
+                    assertFalse(state.transition(SessionState.State.AUTHENTICATING, SessionState.State.STREAMING));
+                    assertNull(state.advance(SessionState.State.STREAMING));
+                    assertFalse(state.isActive());
+                });
+    }
+
+    /**
+     * The CONNECT handler's transition
+     */
+    private static SessionState.State connect(SessionState state) {
+        return state.transition(SessionState.State.AUTHENTICATING, SessionState.State.STREAMING)
+                ? SessionState.State.AUTHENTICATING : null;
+    }
+
+    private static SessionState at(SessionState.State target) {
+        SessionState state = new SessionState();
+        SessionState.State[] path = {
+                SessionState.State.CONNECTING, SessionState.State.AUTHENTICATING, SessionState.State.STREAMING
+        };
+        for (SessionState.State next : path) {
+            if (state.get() == target) {
+                break;
+            }
+            assertNotNull(state.advance(next));
+        }
+        assertEquals(target, state.get());
+        return state;
+    }
+
+    private static int winners(SessionState.State[] previous, int first, int stride) {
+        int count = 0;
+        for (int i = first; i < previous.length; i += stride) {
+            if (previous[i] != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static SessionState.State winner(SessionState.State[] previous, int first, int stride) {
+        for (int i = first; i < previous.length; i += stride) {
+            if (previous[i] != null) {
+                return previous[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Run every thread's attempt against a fresh state at the same instant, ROUNDS times
+     */
+    private static void race(SessionState.State initial, Attempt attempt, RoundCheck check) throws Exception {
+        final SessionState[] state = new SessionState[1];
+        final SessionState.State[] previous = new SessionState.State[THREADS];
+        final Throwable[] failure = new Throwable[1];
+
+        CyclicBarrier start = new CyclicBarrier(THREADS, () -> {
+            state[0] = at(initial);
+            Arrays.fill(previous, null);
+        });
+        CyclicBarrier end = new CyclicBarrier(THREADS, () -> check.verify(state[0], previous));
+
+        Thread[] threads = new Thread[THREADS];
+        for (int t = 0; t < THREADS; t++) {
+            final int thread = t;
+            threads[t] = new Thread(() -> {
+                try {
+                    for (int round = 0; round < ROUNDS; round++) {
+                        start.await();
+                        previous[thread] = attempt.run(state[0], thread);
+                        end.await();
+                    }
+                } catch (Throwable e) {
+                    // Threads released by a broken barrier report that instead of the real failure
+                    synchronized (failure) {
+                        if (failure[0] == null || failure[0] instanceof BrokenBarrierException) {
+                            failure[0] = e;
+                        }
+                    }
+                    start.reset();
+                    end.reset();
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        if (failure[0] instanceof AssertionError) {
+            throw (AssertionError) failure[0];
+        }
+        if (failure[0] != null) {
+            throw new AssertionError(failure[0]);
+        }
+    }
+}
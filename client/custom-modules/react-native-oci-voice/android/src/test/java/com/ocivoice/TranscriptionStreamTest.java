@@ -0,0 +1,22 @@
+package com.ocivoice;
+
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class TranscriptionStreamTest {
+    @Test
+    public void urlCarriesPcmEncoding() {
+        String url = TranscriptionStream.buildUrl("us-ashburn-1", new PcmEncoder().getEncoding(16000));
+
+        assertTrue(url, url.startsWith("wss://realtime.aiservice.us-ashburn-1.oci.oraclecloud.com/ws/transcribe/stream?"));
+        assertTrue(url, url.endsWith("&encoding=audio%2Fraw%3Brate%3D16000"));
+    }
+
+    @Test
+    public void urlCarriesMuLawEncoding() {
+        String url = TranscriptionStream.buildUrl("us-ashburn-1", new MuLawEncoder().getEncoding(16000));
+
+        assertTrue(url, url.endsWith("&encoding=audio%2FPCMU%3Brate%3D16000"));
+    }
+}
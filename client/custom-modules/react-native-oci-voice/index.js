@@ -30,6 +30,7 @@ class OCIVoiceNative {
     this.isInitialized = false;
     this.isListening = false;
     this.listeners = {};
+    this.nextJobId = 1;
     
     // Set up event handlers if the module is available
     if (eventEmitter) {
@@ -49,7 +50,10 @@ class OCIVoiceNative {
       'onSpeechResults',
       'onSpeechPartialResults',
       'onSpeechError',
-      'onSpeechVolumeChanged'
+      'onSpeechVolumeChanged',
+      'onSpeechSpooling',
+      'onTranscribeProgress',
+      'onSpeechSpectrum'
     ];
     
     // Subscribe to each event
@@ -89,6 +93,14 @@ class OCIVoiceNative {
   /**
    * Start listening for speech
    * @param {Object} options Options for speech recognition
+   * @param {boolean} [options.storeAndForward] Spool audio to disk while the service is unreachable
+   *   and transcribe it later; such results carry `captureTimestamp` and `fromBacklog`
+   * @param {number} [options.spoolMaxBytes] Disk budget for spooled audio, greater than 0 (oldest evicted first)
+   * @param {number} [options.drainSpeed] Backlog send rate as a multiple of real time (0 = unthrottled)
+   * @param {number} [options.spectrumBands] Number of log-spaced bands to emit via onSpeechSpectrum (0 = off)
+   * @param {number} [options.spectrumMaxRate] Maximum spectrum events per second (default 30)
+   * @param {string} [options.encoding] Uplink encoding: 'pcm' (default, 16-bit) or 'mulaw' (8-bit,
+   *   half the bandwidth; only if the endpoint accepts audio/PCMU)
    * @returns {Promise<boolean>} Whether start was successful
    */
   async startListening(options = {}) {
@@ -125,6 +137,49 @@ class OCIVoiceNative {
     }
   }
   
+  /**
+   * Transcribe a recorded WAV or raw 16-bit PCM file. Audio at other sample rates is resampled
+   * to 16 kHz; compressed audio (AAC/MP4) is rejected with UNSUPPORTED_FORMAT.
+   * @param {string} uri file:// or content:// URI, or a plain path
+   * @param {Object} options Options for file transcription
+   * @param {string} [options.jobId] Id to pass to cancelTranscription (generated if omitted)
+   * @param {number} [options.speed] 1 for real time, N for N times real time, 0 for as fast as accepted
+   * @param {number} [options.sampleRate] Sample rate of headerless PCM (default 16000)
+   * @param {string} [options.encoding] Uplink encoding: 'pcm' (default) or 'mulaw'
+   * @param {string} [options.token] Session token (defaults to the one given to startListening)
+   * @param {string} [options.compartmentId] Compartment ID (defaults to the one given to startListening)
+   * @returns {Promise<{jobId: string, transcript: string, segments: Array}>} Final transcript
+   */
+  async transcribeFile(uri, options = {}) {
+    if (!OCIVoiceModule) {
+      throw new Error(LINKING_ERROR);
+    }
+    
+    const jobId = options.jobId || `transcribe-${Date.now()}-${this.nextJobId++}`;
+    return OCIVoiceModule.transcribeFile(uri, { ...options, jobId });
+  }
+  
+  /**
+   * Cancel a file transcription started with transcribeFile
+   * @param {string} jobId The job id
+   * @returns {Promise<boolean>} Whether a running job was found
+   */
+  async cancelTranscription(jobId) {
+    if (!OCIVoiceModule) {
+      return false;
+    }
+    
+    return OCIVoiceModule.cancelTranscription(jobId);
+  }
+  
+  /**
+   * Set the callback for file transcription progress events
+   * @param {Function} callback The callback function
+   */
+  setOnTranscribeProgress(callback) {
+    this.onTranscribeProgress = callback;
+  }
+  
   /**
    * Set the callback for speech start events
    * @param {Function} callback The callback function
@@ -173,6 +228,22 @@ class OCIVoiceNative {
     this.onSpeechVolumeChanged = callback;
   }
   
+  /**
+   * Set the callback for spectrum events ({ bands: number[] } with levels 0.0 - 1.0)
+   * @param {Function} callback The callback function
+   */
+  setOnSpeechSpectrum(callback) {
+    this.onSpeechSpectrum = callback;
+  }
+  
+  /**
+   * Set the callback for spooling events (store-and-forward mode lost its session)
+   * @param {Function} callback The callback function
+   */
+  setOnSpeechSpooling(callback) {
+    this.onSpeechSpooling = callback;
+  }
+  
   /**
    * Clean up resources
    */
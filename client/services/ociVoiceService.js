@@ -12,6 +12,9 @@ import { getServerUrlWithOverride } from '../config/serverConfig';
 // Configuration for the authentication server - now uses environment-aware configuration
 const AUTH_SERVER_URL = getServerUrlWithOverride();
 
+// Number of spectrum bands requested from the Android native module for the visualizer
+const SPECTRUM_BANDS = 16;
+
 class OCIVoiceService {
   constructor() {
     // Service state
@@ -36,6 +39,7 @@ class OCIVoiceService {
     this.onSpeechPartialResults = null;
     this.onSpeechError = null;
     this.onSpeechVolumeChanged = null;
+    this.onSpeechSpectrum = null;
   }
   /**
    * Initialize the voice service by setting up audio context and permissions
@@ -475,10 +479,16 @@ class OCIVoiceService {
           if (this.onSpeechVolumeChanged) this.onSpeechVolumeChanged(volume);
         });
         
+        OCIVoiceNative.setOnSpeechSpectrum((spectrum) => {
+          if (this.onSpeechSpectrum) this.onSpeechSpectrum(spectrum.bands);
+        });
+        
         // Start listening using the native module
         const startResult = await OCIVoiceNative.startListening({
           token: this.sessionToken,
-          compartmentId: this.compartmentId
+          compartmentId: this.compartmentId,
+          // Only run native spectrum analysis when someone is rendering it
+          spectrumBands: this.onSpeechSpectrum ? SPECTRUM_BANDS : 0
         });
         
         if (!startResult) {
@@ -606,6 +616,10 @@ class OCIVoiceService {
   setOnSpeechVolumeChanged(callback) {
     this.onSpeechVolumeChanged = callback;
   }
+
+  setOnSpeechSpectrum(callback) {
+    this.onSpeechSpectrum = callback;
+  }
 }
 
 // Export a singleton instance